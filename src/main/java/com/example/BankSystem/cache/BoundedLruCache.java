@@ -0,0 +1,70 @@
+package com.example.BankSystem.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Small thread-safe LRU map. Once maxSize entries are held, inserting a new
+ * key evicts the least recently accessed one.
+ */
+public class BoundedLruCache<K, V> {
+
+    private final int maxSize;
+    private final LinkedHashMap<K, V> entries;
+    private long evictions;
+
+    public BoundedLruCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > BoundedLruCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    public synchronized V remove(K key) {
+        return entries.remove(key);
+    }
+
+    public synchronized int removeIf(Predicate<V> predicate) {
+        int before = entries.size();
+        entries.values().removeIf(predicate);
+        return before - entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Number of entries evicted to stay within maxSize
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+}
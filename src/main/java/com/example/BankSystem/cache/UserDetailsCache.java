@@ -0,0 +1,153 @@
+package com.example.BankSystem.cache;
+
+import com.example.BankSystem.dto.UserCacheStatsDto;
+import com.example.BankSystem.security.UserPrincipal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Loaded UserDetails keyed by username. User and role changes made through the
+ * services invalidate entries once their transaction commits; the TTL bounds how
+ * long any other change (e.g. a direct database update) can go unnoticed.
+ * <p>
+ * Entries are copied in and out: authentication erases the password of the
+ * principal it returns, which must not reach the cached instance.
+ */
+@Component
+public class UserDetailsCache {
+
+    private final BoundedLruCache<String, CachedUserDetails> cache;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    // Bumped by every invalidation so a load that raced with it is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @Autowired
+    public UserDetailsCache(
+            @Value("${app.security.user-cache.max-size:10000}") int maxSize,
+            @Value("${app.security.user-cache.ttl:PT30S}") Duration ttl) {
+        this(maxSize, ttl, System::currentTimeMillis);
+    }
+
+    UserDetailsCache(int maxSize, Duration ttl, LongSupplier clock) {
+        this.cache = new BoundedLruCache<>(maxSize);
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+    }
+
+    public UserDetails get(String username) {
+        CachedUserDetails cached = cache.get(username);
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        if (cached.expiresAt() <= clock.getAsLong()) {
+            cache.remove(username);
+            expirations.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return copyOf(cached.userDetails());
+    }
+
+    /**
+     * Read before loading a user and pass to {@link #put}
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    public void put(String username, UserDetails userDetails, long loadedAtGeneration) {
+        if (ttlMillis <= 0) {
+            return;
+        }
+        // Checked again after the put: an invalidation in between must win
+        if (generation.get() == loadedAtGeneration) {
+            cache.put(username, new CachedUserDetails(copyOf(userDetails),
+                    clock.getAsLong() + ttlMillis));
+            if (generation.get() != loadedAtGeneration) {
+                cache.remove(username);
+            }
+        }
+    }
+
+    /**
+     * Drop the given usernames once the surrounding transaction has committed
+     */
+    public void invalidate(String... usernames) {
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            for (String username : List.of(usernames)) {
+                if (cache.remove(username) != null) {
+                    invalidations.increment();
+                }
+            }
+        });
+    }
+
+    public void invalidateAll() {
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            invalidations.add(cache.size());
+            cache.clear();
+        });
+    }
+
+    public UserCacheStatsDto getStats() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        return UserCacheStatsDto.builder()
+                .size(cache.size())
+                .maxSize(cache.getMaxSize())
+                .ttlSeconds(ttlMillis / 1000)
+                .hits(hitCount)
+                .misses(misses.sum())
+                .hitRatio(lookups == 0 ? 0 : (double) hitCount / lookups)
+                .evictions(cache.getEvictions())
+                .expirations(expirations.sum())
+                .invalidations(invalidations.sum())
+                .build();
+    }
+
+    // Helper methods
+    // Keeps the user id of a UserPrincipal, which a plain User copy would drop
+    private UserDetails copyOf(UserDetails userDetails) {
+        return userDetails instanceof UserPrincipal principal
+                ? principal.copy()
+                : User.withUserDetails(userDetails).build();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record CachedUserDetails(UserDetails userDetails, long expiresAt) {
+    }
+}
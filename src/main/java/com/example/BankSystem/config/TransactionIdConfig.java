@@ -0,0 +1,23 @@
+package com.example.BankSystem.config;
+
+import com.example.BankSystem.id.RandomUuidTransactionIdGenerator;
+import com.example.BankSystem.id.TimeOrderedTransactionIdGenerator;
+import com.example.BankSystem.id.TransactionIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TransactionIdConfig {
+
+    @Bean
+    public TransactionIdGenerator transactionIdGenerator(
+            @Value("${app.transaction-id.strategy:time-ordered}") String strategy,
+            @Value("${app.transaction-id.node-id:0}") int nodeId) {
+        return switch (strategy) {
+            case "time-ordered" -> new TimeOrderedTransactionIdGenerator(nodeId);
+            case "random-uuid" -> new RandomUuidTransactionIdGenerator();
+            default -> throw new IllegalArgumentException("Unknown transaction id strategy: " + strategy);
+        };
+    }
+}
@@ -1,14 +1,19 @@
 package com.example.BankSystem.controller;
 
 import com.example.BankSystem.dto.AccountDto;
+import com.example.BankSystem.dto.AccountFilter;
+import com.example.BankSystem.dto.BalanceAuditDto;
+import com.example.BankSystem.dto.CursorPage;
 import com.example.BankSystem.service.AccountService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -27,12 +32,25 @@ public class AccountController {
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<AccountDto>> getAllAccounts() {
-        log.info("Request to get all accounts");
-        List<AccountDto> accounts = accountService.getAllAccounts();
+    public ResponseEntity<CursorPage<AccountDto>> getAccounts(
+            AccountFilter filter,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int limit) {
+        log.info("Request to get accounts matching {} after {}", filter, after);
+        CursorPage<AccountDto> accounts = accountService.getAccounts(filter, after, limit);
         return ResponseEntity.ok(accounts);
     }
 
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportAccounts(AccountFilter filter) {
+        log.info("Request to export accounts matching {}", filter);
+        StreamingResponseBody body = accountService.exportAccounts(filter);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or @accountSecurity.canAccessAccount(#id)")
     public ResponseEntity<AccountDto> getAccountById(@PathVariable Long id) {
@@ -81,6 +99,30 @@ public class AccountController {
         return ResponseEntity.noContent().build();
     }
 
+    @PutMapping("/{id}/striping")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<AccountDto> configureBalanceStriping(@PathVariable Long id, @RequestParam int slots) {
+        log.info("Request to use {} balance slots for account with ID: {}", slots, id);
+        AccountDto updatedAccount = accountService.configureBalanceStriping(id, slots);
+        return ResponseEntity.ok(updatedAccount);
+    }
+
+    @GetMapping("/{id}/audit")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BalanceAuditDto> auditBalance(@PathVariable Long id) {
+        log.info("Request to audit balance of account with ID: {}", id);
+        BalanceAuditDto audit = accountService.auditBalance(id);
+        return ResponseEntity.ok(audit);
+    }
+
+    @PostMapping("/{id}/rebuild-balance")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BalanceAuditDto> rebuildBalance(@PathVariable Long id) {
+        log.info("Request to rebuild balance of account with ID: {}", id);
+        BalanceAuditDto audit = accountService.rebuildBalance(id);
+        return ResponseEntity.ok(audit);
+    }
+
     @PostMapping("/deposit")
     @PreAuthorize("hasRole('ADMIN') or @accountSecurity.canAccessAccountByNumber(#accountNumber)")
     public ResponseEntity<AccountDto> deposit(
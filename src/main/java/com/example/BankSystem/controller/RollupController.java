@@ -0,0 +1,48 @@
+package com.example.BankSystem.controller;
+
+import com.example.BankSystem.dto.DailyRollupDto;
+import com.example.BankSystem.service.RollupService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/rollups")
+@Slf4j
+public class RollupController {
+
+    private final RollupService rollupService;
+
+    @Autowired
+    public RollupController(RollupService rollupService) {
+        this.rollupService = rollupService;
+    }
+
+    @GetMapping("/{accountNumber}")
+    @PreAuthorize("hasRole('ADMIN') or @accountSecurity.canAccessAccountByNumber(#accountNumber)")
+    public ResponseEntity<List<DailyRollupDto>> getDailyRollups(
+            @PathVariable String accountNumber,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.info("Request to get daily rollups of account {} from {} to {}", accountNumber, from, to);
+        List<DailyRollupDto> rollups = rollupService.getDailyRollups(accountNumber, from, to);
+        return ResponseEntity.ok(rollups);
+    }
+
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Integer>> rebuild(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.info("Request to rebuild daily rollups from {} to {}", from, to);
+        int rollups = rollupService.rebuild(from, to);
+        return ResponseEntity.ok(Map.of("rollups", rollups));
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.BankSystem.controller;
+
+import com.example.BankSystem.dto.StatementDto;
+import com.example.BankSystem.service.StatementService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/statements")
+@Slf4j
+public class StatementController {
+
+    private final StatementService statementService;
+
+    @Autowired
+    public StatementController(StatementService statementService) {
+        this.statementService = statementService;
+    }
+
+    @GetMapping("/{accountNumber}/{period}")
+    @PreAuthorize("hasRole('ADMIN') or @accountSecurity.canAccessAccountByNumber(#accountNumber)")
+    public ResponseEntity<StatementDto> getStatement(
+            @PathVariable String accountNumber,
+            @PathVariable @DateTimeFormat(pattern = "yyyy-MM") YearMonth period) {
+        log.info("Request to get statement of account {} for {}", accountNumber, period);
+        StatementDto statement = statementService.getStatement(accountNumber, period);
+        return ResponseEntity.ok(statement);
+    }
+
+    @PostMapping("/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Integer>> backfill() {
+        log.info("Request to backfill account statements");
+        int entries = statementService.backfill();
+        return ResponseEntity.ok(Map.of("entries", entries));
+    }
+}
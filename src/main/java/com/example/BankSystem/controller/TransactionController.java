@@ -1,17 +1,30 @@
 package com.example.BankSystem.controller;
 
+import com.example.BankSystem.dto.BatchTransferRequest;
+import com.example.BankSystem.dto.BatchTransferResponse;
+import com.example.BankSystem.dto.CursorPage;
 import com.example.BankSystem.dto.TransactionDto;
+import com.example.BankSystem.dto.TransactionSearchRequest;
 import com.example.BankSystem.dto.TransferRequest;
 import com.example.BankSystem.dto.TransferResponse;
+import com.example.BankSystem.enums.ExportFormat;
+import com.example.BankSystem.export.TransactionExportWriter;
+import com.example.BankSystem.service.TransactionSearchService;
 import com.example.BankSystem.service.TransactionService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PostAuthorize;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -21,10 +34,13 @@ import java.util.List;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final TransactionSearchService transactionSearchService;
 
     @Autowired
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService,
+                                 TransactionSearchService transactionSearchService) {
         this.transactionService = transactionService;
+        this.transactionSearchService = transactionSearchService;
     }
 
     @GetMapping
@@ -35,6 +51,23 @@ public class TransactionController {
         return ResponseEntity.ok(transactions);
     }
 
+    @GetMapping("/search")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPage<TransactionDto>> searchTransactions(@Valid TransactionSearchRequest request) {
+        log.info("Request to search transactions: {}", request);
+        CursorPage<TransactionDto> results = transactionSearchService.search(request);
+        return ResponseEntity.ok(results);
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportAllTransactions(
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        log.info("Request to export all transactions as {}", format);
+        StreamingResponseBody body = transactionService.exportAllTransactions(format);
+        return exportResponse(body, format, "transactions");
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or @transactionSecurity.canAccessTransaction(#id)")
     public ResponseEntity<TransactionDto> getTransactionById(@PathVariable Long id) {
@@ -69,15 +102,80 @@ public class TransactionController {
         return ResponseEntity.ok(transactions);
     }
 
+    @GetMapping("/account/{accountNumber}/export")
+    @PreAuthorize("hasRole('ADMIN') or @accountSecurity.canAccessAccountByNumber(#accountNumber)")
+    public ResponseEntity<StreamingResponseBody> exportTransactionsByAccountNumber(
+            @PathVariable String accountNumber,
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        log.info("Request to export transactions for account {} as {}", accountNumber, format);
+        StreamingResponseBody body = transactionService.exportTransactionsByAccountNumber(accountNumber, format);
+        return exportResponse(body, format, "transactions-" + accountNumber);
+    }
+
+    @GetMapping("/account/{accountNumber}/history")
+    @PreAuthorize("hasRole('ADMIN') or @accountSecurity.canAccessAccountByNumber(#accountNumber)")
+    public ResponseEntity<CursorPage<TransactionDto>> getTransactionHistory(
+            @PathVariable String accountNumber,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "50") int limit) {
+        log.info("Request to get transaction history for account: {}", accountNumber);
+        CursorPage<TransactionDto> history = transactionService.getTransactionHistory(accountNumber, after, before, limit);
+        return ResponseEntity.ok(history);
+    }
+
     @PostMapping("/transfer")
-    @PreAuthorize("hasRole('USER') or hasRole('ADMIN') or @accountSecurity.canAccessAccountByNumber(#transferRequest.sourceAccountNumber)")
-    public ResponseEntity<TransferResponse> transferFunds(@Valid @RequestBody TransferRequest transferRequest) {
+    @PreAuthorize("hasRole('ADMIN') or @accountSecurity.canTransferFromAccount(#transferRequest.sourceAccountNumber)")
+    public ResponseEntity<TransferResponse> transferFunds(
+            @Valid @RequestBody TransferRequest transferRequest,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         log.info("Request to transfer {} from {} to {}",
                 transferRequest.getAmount(),
                 transferRequest.getSourceAccountNumber(),
                 transferRequest.getDestinationAccountNumber());
 
-        TransferResponse response = transactionService.transferFunds(transferRequest);
+        TransferResponse response = StringUtils.hasText(idempotencyKey)
+                ? transactionService.transferFunds(transferRequest, idempotencyKey)
+                : transactionService.transferFunds(transferRequest);
         return ResponseEntity.ok(response);
     }
+
+    @PostMapping("/transfer/async")
+    @PreAuthorize("hasRole('ADMIN') or @accountSecurity.canTransferFromAccount(#transferRequest.sourceAccountNumber)")
+    public ResponseEntity<TransferResponse> submitTransfer(@Valid @RequestBody TransferRequest transferRequest) {
+        log.info("Request to queue transfer of {} from {} to {}",
+                transferRequest.getAmount(),
+                transferRequest.getSourceAccountNumber(),
+                transferRequest.getDestinationAccountNumber());
+
+        TransferResponse response = transactionService.submitTransfer(transferRequest);
+        return new ResponseEntity<>(response, HttpStatus.ACCEPTED);
+    }
+
+    // Checked on the result: the accounts involved are only known once the transfer is loaded
+    @GetMapping("/transfer/{transactionId}/status")
+    @PostAuthorize("hasRole('ADMIN') or @accountSecurity.canAccessTransfer(returnObject.body)")
+    public ResponseEntity<TransferResponse> getTransferStatus(@PathVariable String transactionId) {
+        log.info("Request to get status of transfer: {}", transactionId);
+        TransferResponse response = transactionService.getTransferStatus(transactionId);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/transfer/batch")
+    @PreAuthorize("hasRole('ADMIN') or @accountSecurity.canTransferBatch(#batchRequest)")
+    public ResponseEntity<BatchTransferResponse> transferFundsBatch(@Valid @RequestBody BatchTransferRequest batchRequest) {
+        log.info("Request to execute a batch of {} transfers", batchRequest.getTransfers().size());
+
+        BatchTransferResponse response = transactionService.transferFundsBatch(batchRequest);
+        return ResponseEntity.ok(response);
+    }
+
+    private ResponseEntity<StreamingResponseBody> exportResponse(StreamingResponseBody body, ExportFormat format,
+                                                                 String fileName) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(TransactionExportWriter.contentType(format)))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "."
+                        + TransactionExportWriter.fileExtension(format) + "\"")
+                .body(body);
+    }
 }
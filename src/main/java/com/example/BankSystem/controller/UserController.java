@@ -1,16 +1,24 @@
 package com.example.BankSystem.controller;
 
+import com.example.BankSystem.cache.UserDetailsCache;
+import com.example.BankSystem.dto.CursorPage;
+import com.example.BankSystem.dto.PasswordHashingStatsDto;
+import com.example.BankSystem.dto.UserCacheStatsDto;
 import com.example.BankSystem.dto.UserDto;
+import com.example.BankSystem.security.BoundedPasswordEncoder;
 import com.example.BankSystem.service.UserService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/api/users")
@@ -18,20 +26,53 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final UserDetailsCache userDetailsCache;
+    private final BoundedPasswordEncoder passwordEncoder;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserDetailsCache userDetailsCache,
+                          BoundedPasswordEncoder passwordEncoder) {
         this.userService = userService;
+        this.userDetailsCache = userDetailsCache;
+        this.passwordEncoder = passwordEncoder;
     }
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<UserDto>> getAllUsers() {
-        log.info("Request to get all users");
-        List<UserDto> users = userService.getAllUsers();
+    public ResponseEntity<CursorPage<UserDto>> getUsers(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int limit) {
+        log.info("Request to get users after {}", after);
+        CursorPage<UserDto> users = userService.getUsers(createdFrom, createdTo, after, limit);
         return ResponseEntity.ok(users);
     }
 
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo) {
+        log.info("Request to export users");
+        StreamingResponseBody body = userService.exportUsers(createdFrom, createdTo);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UserCacheStatsDto> getUserCacheStats() {
+        return ResponseEntity.ok(userDetailsCache.getStats());
+    }
+
+    @GetMapping("/password-hashing/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PasswordHashingStatsDto> getPasswordHashingStats() {
+        return ResponseEntity.ok(passwordEncoder.getStats());
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or @userSecurity.isCurrentUser(#id)")
     public ResponseEntity<UserDto> getUserById(@PathVariable Long id) {
@@ -0,0 +1,6 @@
+package com.example.BankSystem.datasource;
+
+public enum DataSourceRoute {
+    PRIMARY,
+    REPLICA
+}
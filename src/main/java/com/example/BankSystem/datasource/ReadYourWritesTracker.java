@@ -0,0 +1,37 @@
+package com.example.BankSystem.datasource;
+
+import com.example.BankSystem.cache.BoundedLruCache;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers which users wrote recently, so their reads can stay on the primary until
+ * the replica has had time to replay the write. State is per instance: a user whose
+ * next request lands on another instance is only covered by the replica lag guard.
+ */
+public class ReadYourWritesTracker {
+
+    private final BoundedLruCache<String, Long> lastWrites;
+    private final long windowMillis;
+    private final LongSupplier clock;
+
+    public ReadYourWritesTracker(Duration window, int maxUsers) {
+        this(window, maxUsers, System::currentTimeMillis);
+    }
+
+    ReadYourWritesTracker(Duration window, int maxUsers, LongSupplier clock) {
+        this.lastWrites = new BoundedLruCache<>(maxUsers);
+        this.windowMillis = window.toMillis();
+        this.clock = clock;
+    }
+
+    public void recordWrite(String username) {
+        lastWrites.put(username, clock.getAsLong());
+    }
+
+    public boolean wroteRecently(String username) {
+        Long lastWrite = lastWrites.get(username);
+        return lastWrite != null && clock.getAsLong() - lastWrite < windowMillis;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.BankSystem.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Polls the replica for its replay lag. The replica only takes reads while the last
+ * check succeeded and found it streaming from the primary within the allowed lag; until
+ * the first check, and whenever the replica cannot be reached, reads go to the primary.
+ * <p>
+ * The replica user needs pg_read_all_stats (or superuser) to see the WAL receiver status;
+ * without it the replica never counts as streaming.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    // A streaming replica that has replayed everything it received is current, however old its
+    // last replayed transaction is. Once the WAL receiver disconnects, having replayed everything
+    // received says nothing about the primary, so the lag is unknown (null). A server that is
+    // not in recovery (a stand-in) has no lag.
+    private static final String LAG_QUERY = "SELECT CASE " +
+            "WHEN NOT pg_is_in_recovery() THEN 0 " +
+            "WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming') THEN NULL " +
+            "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE CAST(COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) AS BIGINT) END";
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final long maxLagMillis;
+    private volatile boolean available;
+    private volatile long lagMillis = -1;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, Duration maxLag) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.maxLagMillis = maxLag.toMillis();
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval-ms:1000}")
+    public void check() {
+        boolean wasAvailable = available;
+        try {
+            Long lag = replicaJdbcTemplate.queryForObject(LAG_QUERY, Long.class);
+            lagMillis = lag != null ? lag : -1;
+            available = lag != null && lag <= maxLagMillis;
+        } catch (DataAccessException e) {
+            lagMillis = -1;
+            available = false;
+            if (wasAvailable) {
+                log.warn("Replica lag check failed: {}", e.getMessage());
+            }
+        }
+
+        if (wasAvailable && !available) {
+            log.warn("Replica unavailable (lag {} ms, allowed {} ms, -1 if not streaming); reading from the primary",
+                    lagMillis, maxLagMillis);
+        } else if (!wasAvailable && available) {
+            log.info("Replica available (lag {} ms); read-only transactions go to the replica", lagMillis);
+        }
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public long getLagMillis() {
+        return lagMillis;
+    }
+}
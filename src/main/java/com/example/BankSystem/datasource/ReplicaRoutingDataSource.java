@@ -0,0 +1,57 @@
+package com.example.BankSystem.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the primary.
+ * A read-only transaction still goes to the primary when the replica is lagging or
+ * unreachable, or when the current user wrote within the read-your-writes window.
+ * <p>
+ * The window only covers the user who made the write. A transfer also changes the
+ * destination account, but its owner is not tracked here: until the replica catches
+ * up, that user can still read the balance and history from before the credit.
+ * <p>
+ * Must sit behind a LazyConnectionDataSourceProxy: the transaction manager asks for a
+ * connection before the read-only flag of the transaction is published, and the proxy
+ * delays the real lookup until the first statement runs.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final BooleanSupplier replicaAvailable;
+
+    public ReplicaRoutingDataSource(ReadYourWritesTracker readYourWritesTracker, BooleanSupplier replicaAvailable) {
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.replicaAvailable = replicaAvailable;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String username = currentUsername();
+
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // Every connection of a read-write transaction restarts the window, so it
+            // still covers the commit that follows
+            if (username != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                readYourWritesTracker.recordWrite(username);
+            }
+            return DataSourceRoute.PRIMARY;
+        }
+
+        if (username != null && readYourWritesTracker.wroteRecently(username)) {
+            return DataSourceRoute.PRIMARY;
+        }
+        return replicaAvailable.getAsBoolean() ? DataSourceRoute.REPLICA : DataSourceRoute.PRIMARY;
+    }
+
+    // Helper methods
+    private String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+}
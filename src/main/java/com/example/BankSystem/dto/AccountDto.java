@@ -1,5 +1,7 @@
 package com.example.BankSystem.dto;
 
+import com.example.BankSystem.enums.AccountStatus;
+import com.example.BankSystem.enums.AccountType;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -30,6 +32,8 @@ public class AccountDto {
     @DecimalMin(value = "0.0", inclusive = true, message = "Balance must be positive or zero")
     private BigDecimal balance;
 
+    private Integer balanceSlots; // Read-only, set through the striping endpoint
+
     @NotBlank(message = "Account type is required")
     private String accountType;
 
@@ -38,4 +42,12 @@ public class AccountDto {
 
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+
+    // Used by JPQL constructor expressions, which select the enums rather than their names
+    public AccountDto(Long id, String accountNumber, Long userId, String username, BigDecimal balance,
+                      Integer balanceSlots, AccountType accountType, AccountStatus status,
+                      LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, accountNumber, userId, username, balance, balanceSlots,
+                accountType.toString(), status.toString(), createdAt, updatedAt);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.example.BankSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceAuditDto {
+    private Long accountId;
+    private String accountNumber;
+    private BigDecimal storedBalance; // accounts.balance plus any striped slots
+    private BigDecimal ledgerBalance; // Snapshot plus the entries written after it
+    private Long snapshotEntryId;
+    private BigDecimal snapshotBalance;
+    private long entriesSinceSnapshot;
+    private boolean consistent;
+}
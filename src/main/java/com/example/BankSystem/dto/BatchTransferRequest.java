@@ -0,0 +1,25 @@
+package com.example.BankSystem.dto;
+
+import com.example.BankSystem.enums.BatchTransferMode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferRequest {
+    @NotEmpty(message = "At least one transfer is required")
+    private List<@Valid TransferRequest> transfers;
+
+    // ALL_OR_NOTHING rolls back the whole batch on the first failing item,
+    // BEST_EFFORT applies every item that can be applied and reports the rest
+    @Builder.Default
+    private BatchTransferMode mode = BatchTransferMode.ALL_OR_NOTHING;
+}
@@ -0,0 +1,20 @@
+package com.example.BankSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferResponse {
+    private String mode;
+    private int totalCount;
+    private int successCount;
+    private int failureCount;
+    private List<TransferResponse> results;
+}
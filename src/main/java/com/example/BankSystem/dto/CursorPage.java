@@ -0,0 +1,19 @@
+package com.example.BankSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private int limit;
+    private String nextCursor; // Pass as "after" to continue with older items; null on the last page
+    private String previousCursor; // Pass as "before" to go back to newer items; null on the first page
+}
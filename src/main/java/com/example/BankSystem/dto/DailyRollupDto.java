@@ -0,0 +1,21 @@
+package com.example.BankSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyRollupDto {
+    private LocalDate day;
+    private BigDecimal inflow;
+    private BigDecimal outflow;
+    private int inflowCount;
+    private int outflowCount;
+}
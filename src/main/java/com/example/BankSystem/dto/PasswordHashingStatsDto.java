@@ -0,0 +1,22 @@
+package com.example.BankSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PasswordHashingStatsDto {
+    private int strength;
+    private int threads;
+    private int queueCapacity;
+    private int queueDepth;       // Hashes waiting for a thread right now
+    private int active;           // Hashes running right now
+    private long completed;
+    private long rejected;        // Answered with 429 because the queue was full or the wait timed out
+    private double averageHashMillis;
+    private double averageQueueWaitMillis;
+}
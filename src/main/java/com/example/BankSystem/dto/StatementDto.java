@@ -0,0 +1,25 @@
+package com.example.BankSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementDto {
+    private String accountNumber;
+    private YearMonth period;
+    private BigDecimal openingBalance;
+    private BigDecimal closingBalance;
+    private BigDecimal totalCredits;
+    private BigDecimal totalDebits;
+    private int entryCount;
+    private List<StatementEntryDto> entries;
+}
@@ -0,0 +1,23 @@
+package com.example.BankSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementEntryDto {
+    private String transactionId;
+    private String entryType;
+    private String direction;
+    private BigDecimal amount;
+    private BigDecimal runningBalance; // Account balance after this entry
+    private String description;
+    private LocalDateTime timestamp;
+}
@@ -1,5 +1,7 @@
 package com.example.BankSystem.dto;
 
+import com.example.BankSystem.enums.TransactionStatus;
+import com.example.BankSystem.enums.TransactionType;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -32,4 +34,12 @@ public class TransactionDto {
     private String status;
     private String description;
     private LocalDateTime timestamp;
+
+    // Used by JPQL constructor expressions, which select the enums rather than their names
+    public TransactionDto(Long id, String transactionId, String sourceAccountNumber, String destinationAccountNumber,
+                          BigDecimal amount, TransactionType type, TransactionStatus status, String description,
+                          LocalDateTime timestamp) {
+        this(id, transactionId, sourceAccountNumber, destinationAccountNumber, amount,
+                type.toString(), status.toString(), description, timestamp);
+    }
 }
\ No newline at end of file
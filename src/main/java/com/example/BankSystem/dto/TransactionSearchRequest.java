@@ -0,0 +1,40 @@
+package com.example.BankSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionSearchRequest {
+    private String accountNumber; // Matches either side of the transaction
+
+    @NotNull(message = "Start of the date range is required")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from; // Inclusive
+
+    @NotNull(message = "End of the date range is required")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to; // Exclusive
+
+    private String type;
+    private String status;
+
+    @DecimalMin(value = "0.01", message = "Minimum amount must be greater than zero")
+    private BigDecimal minAmount;
+
+    @DecimalMin(value = "0.01", message = "Maximum amount must be greater than zero")
+    private BigDecimal maxAmount;
+
+    private String after; // Cursor from the previous page
+    private Integer limit;
+}
@@ -0,0 +1,28 @@
+package com.example.BankSystem.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of a transaction row with both account numbers joined in,
+ * returned by native history queries. Type and status are the database enum labels.
+ */
+public interface TransactionView {
+    Long getId();
+
+    String getTransactionId();
+
+    String getSourceAccountNumber();
+
+    String getDestinationAccountNumber();
+
+    BigDecimal getAmount();
+
+    String getType();
+
+    String getStatus();
+
+    String getDescription();
+
+    LocalDateTime getTimestamp();
+}
@@ -0,0 +1,22 @@
+package com.example.BankSystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserCacheStatsDto {
+    private int size;
+    private int maxSize;
+    private long ttlSeconds;
+    private long hits;
+    private long misses;
+    private double hitRatio;
+    private long evictions;     // Least recently used entries dropped because the cache was full
+    private long expirations;   // Entries found past their TTL
+    private long invalidations; // Entries dropped after a user or role change
+}
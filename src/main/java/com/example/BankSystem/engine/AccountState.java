@@ -0,0 +1,27 @@
+package com.example.BankSystem.engine;
+
+import com.example.BankSystem.enums.AccountStatus;
+
+import java.math.BigDecimal;
+
+/**
+ * In-memory copy of an account, only ever touched by the shard thread that owns it
+ */
+final class AccountState {
+
+    final long id;
+    final String accountNumber;
+    BigDecimal balance;
+    AccountStatus status;
+
+    AccountState(long id, String accountNumber, BigDecimal balance, AccountStatus status) {
+        this.id = id;
+        this.accountNumber = accountNumber;
+        this.balance = balance;
+        this.status = status;
+    }
+
+    boolean isActive() {
+        return status == AccountStatus.ACTIVE;
+    }
+}
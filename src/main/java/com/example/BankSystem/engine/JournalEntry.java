@@ -0,0 +1,18 @@
+package com.example.BankSystem.engine;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A money movement already applied in memory and waiting to be written to the database.
+ * Deposits have no source account, withdrawals no destination; only transfers carry a
+ * transaction id and produce a row in the transactions table.
+ */
+record JournalEntry(
+        String transactionId,
+        Long sourceAccountId,
+        Long destinationAccountId,
+        BigDecimal amount,
+        String description,
+        LocalDateTime timestamp) {
+}
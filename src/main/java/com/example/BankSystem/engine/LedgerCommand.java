@@ -0,0 +1,65 @@
+package com.example.BankSystem.engine;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Message processed by a {@link LedgerShard}. {@code accountNumber} is always an
+ * account owned by the shard receiving the command.
+ * <p>
+ * A command submitted by a client is either started by its shard or cancelled by a
+ * caller that gave up waiting, never both; messages between shards are never cancelled.
+ */
+final class LedgerCommand {
+
+    private static final int QUEUED = 0;
+    private static final int STARTED = 1;
+    private static final int CANCELLED = 2;
+
+    enum Kind {
+        // Both accounts checked by the source shard; debit, then credit locally or via CREDIT
+        TRANSFER,
+        // Second leg of a cross-shard transfer, sent to the destination shard
+        CREDIT,
+        // Returns a reserved debit to the source when the CREDIT leg is rejected
+        REFUND,
+        DEPOSIT,
+        WITHDRAW
+    }
+
+    final Kind kind;
+    final String accountNumber;
+    final String counterpartyNumber;
+    final BigDecimal amount;
+    final String transactionId;
+    final String description;
+    final CompletableFuture<LedgerResult> result;
+    long sourceAccountId;
+    private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+    LedgerCommand(Kind kind, String accountNumber, String counterpartyNumber, BigDecimal amount,
+                  String transactionId, String description, CompletableFuture<LedgerResult> result) {
+        this.kind = kind;
+        this.accountNumber = accountNumber;
+        this.counterpartyNumber = counterpartyNumber;
+        this.amount = amount;
+        this.transactionId = transactionId;
+        this.description = description;
+        this.result = result;
+    }
+
+    /**
+     * Claimed by the shard before applying; false if the caller already cancelled
+     */
+    boolean start() {
+        return state.compareAndSet(QUEUED, STARTED);
+    }
+
+    /**
+     * False if the shard already started applying the command
+     */
+    boolean cancel() {
+        return state.compareAndSet(QUEUED, CANCELLED);
+    }
+}
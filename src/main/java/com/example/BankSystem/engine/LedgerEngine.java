@@ -0,0 +1,223 @@
+package com.example.BankSystem.engine;
+
+import com.example.BankSystem.enums.AccountStatus;
+import com.example.BankSystem.exception.InvalidTransactionException;
+import com.example.BankSystem.service.LedgerService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Optional in-memory ledger for the hottest money flows. Balances are held in
+ * memory and sharded by a hash of the account number; each shard is owned by one
+ * thread fed from a lock-free ring buffer. Results are journaled to the accounts and
+ * transactions tables asynchronously, in batches.
+ * <p>
+ * Transfers between accounts on the same shard are applied in one step. A cross-shard
+ * transfer is checked and debited on the source shard, which then forwards a credit
+ * to the destination shard. If the destination rejects it, a refund goes back to the
+ * source. Only fully applied transfers are journaled, so the database never sees a
+ * half-done transfer.
+ * <p>
+ * On startup every account is loaded from the database before the shard threads
+ * start. While the engine is enabled it owns all balances: deposits, withdrawals and
+ * single transfers go through it, and paths that write balances directly are refused.
+ * <p>
+ * A caller that times out cancels its command if no shard has started it yet; otherwise
+ * it gets a pending result, since the command may still take effect. If the journal
+ * dead-letters a movement the engine halts and refuses further commands.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "app.ledger-engine.enabled", havingValue = "true")
+public class LedgerEngine implements SmartLifecycle {
+
+    // Striped accounts hold part of their balance in slots; the engine owns the total
+    private static final String ACCOUNT_COLUMNS = "SELECT a.id, a.account_number, a.balance + COALESCE(" +
+            "(SELECT SUM(s.balance) FROM account_balance_slots s WHERE s.account_id = a.id), 0) AS balance, " +
+            "a.status FROM accounts a";
+
+    private static final RowMapper<AccountState> ACCOUNT_STATE_MAPPER = (rs, rowNum) -> new AccountState(
+            rs.getLong("id"),
+            rs.getString("account_number"),
+            rs.getBigDecimal("balance"),
+            AccountStatus.valueOf(rs.getString("status")));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LedgerShard[] shards;
+    private final LedgerJournal journal;
+    private final long requestTimeoutMs;
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+
+    @Autowired
+    public LedgerEngine(
+            JdbcTemplate jdbcTemplate,
+            LedgerService ledgerService,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.ledger-engine.shards:4}") int shardCount,
+            @Value("${app.ledger-engine.inbox-capacity:8192}") int inboxCapacity,
+            @Value("${app.ledger-engine.journal-capacity:65536}") int journalCapacity,
+            @Value("${app.ledger-engine.journal-batch-size:500}") int journalBatchSize,
+            @Value("${app.ledger-engine.journal-max-attempts:5}") int journalMaxAttempts,
+            @Value("${app.ledger-engine.request-timeout-ms:5000}") long requestTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.requestTimeoutMs = requestTimeoutMs;
+        this.journal = new LedgerJournal(journalCapacity, journalBatchSize, journalMaxAttempts, jdbcTemplate,
+                ledgerService, new TransactionTemplate(transactionManager));
+        this.shards = new LedgerShard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new LedgerShard(i, inboxCapacity, this::shardFor, journal::append, this::loadAccount);
+        }
+    }
+
+    public LedgerResult transfer(String sourceAccountNumber, String destinationAccountNumber,
+                                 BigDecimal amount, String transactionId, String description) {
+        return execute(new LedgerCommand(LedgerCommand.Kind.TRANSFER, sourceAccountNumber, destinationAccountNumber,
+                amount, transactionId, description, new CompletableFuture<>()));
+    }
+
+    public LedgerResult deposit(String accountNumber, BigDecimal amount) {
+        return execute(new LedgerCommand(LedgerCommand.Kind.DEPOSIT, accountNumber, null,
+                amount, null, null, new CompletableFuture<>()));
+    }
+
+    public LedgerResult withdraw(String accountNumber, BigDecimal amount) {
+        return execute(new LedgerCommand(LedgerCommand.Kind.WITHDRAW, accountNumber, null,
+                amount, null, null, new CompletableFuture<>()));
+    }
+
+    /**
+     * Pick up a status change made outside the engine (freeze, close, delete). The owning
+     * shard reloads the account before it next serves it, so this never blocks or fails.
+     */
+    public void markStale(String accountNumber) {
+        shardFor(accountNumber).markStale(accountNumber);
+    }
+
+    LedgerShard shardFor(String accountNumber) {
+        return shards[Math.floorMod(accountNumber.hashCode(), shards.length)];
+    }
+
+    @Override
+    public void start() {
+        Integer pending = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transactions WHERE status = 'PENDING'", Integer.class);
+        if (pending != null && pending > 0) {
+            log.warn("{} PENDING transfers stay queued while the ledger engine owns the balances", pending);
+        }
+
+        // Recover balances before any shard thread runs; Thread.start publishes them
+        jdbcTemplate.query(ACCOUNT_COLUMNS, rs -> {
+            AccountState account = ACCOUNT_STATE_MAPPER.mapRow(rs, 0);
+            shardFor(account.accountNumber).recover(account);
+        });
+
+        threads.add(startThread(journal, "ledger-journal"));
+        for (int i = 0; i < shards.length; i++) {
+            threads.add(startThread(shards[i], "ledger-shard-" + i));
+        }
+        running = true;
+        log.info("Ledger engine started with {} shards", shards.length);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (LedgerShard shard : shards) {
+            shard.stop();
+        }
+        // Journal last so every applied movement still reaches the database
+        journal.stop();
+        for (Thread thread : threads) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        log.info("Ledger engine stopped");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Helper methods
+    private LedgerResult execute(LedgerCommand command) {
+        if (!running) {
+            throw new IllegalStateException("Ledger engine is not running");
+        }
+        if (journal.isHalted()) {
+            throw new IllegalStateException("Ledger engine halted after a journal failure; " +
+                    "see ledger_journal_dead_letters");
+        }
+        if (!shardFor(command.accountNumber).submit(command)) {
+            throw new InvalidTransactionException("Ledger engine is overloaded, please retry");
+        }
+
+        LedgerResult result = await(command);
+        if (result != null) {
+            return result;
+        }
+        if (command.cancel()) {
+            throw new IllegalStateException("Ledger engine did not answer within " + requestTimeoutMs +
+                    " ms; the operation was not applied");
+        }
+        // A shard already started it, so the caller must not be told it failed
+        result = await(command);
+        if (result != null) {
+            return result;
+        }
+        log.warn("Outcome of {} command on account {} is not known yet", command.kind, command.accountNumber);
+        return LedgerResult.pending(command.transactionId);
+    }
+
+    // Null if no answer arrived within the request timeout
+    private LedgerResult await(LedgerCommand command) {
+        try {
+            return command.result.get(requestTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private Optional<AccountState> loadAccount(String accountNumber) {
+        return jdbcTemplate.query(ACCOUNT_COLUMNS + " WHERE a.account_number = ?", ACCOUNT_STATE_MAPPER, accountNumber)
+                .stream()
+                .findFirst();
+    }
+
+    private Thread startThread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+}
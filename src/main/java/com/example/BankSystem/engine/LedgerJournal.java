@@ -0,0 +1,193 @@
+package com.example.BankSystem.engine;
+
+import com.example.BankSystem.service.LedgerService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes movements applied by the shards to the accounts, transactions and ledger
+ * tables. A single writer thread drains the journal in batches: each batch becomes one
+ * database transaction with one net balance UPDATE per account and JDBC batches of
+ * transaction rows and ledger entries.
+ * <p>
+ * A failed batch is retried up to maxAttempts times, then written entry by entry.
+ * Entries that still fail are moved to ledger_journal_dead_letters (or, if even that
+ * fails, logged) and the journal is marked halted: those movements were applied in
+ * memory but are missing from the database, so the engine stops taking commands until
+ * an operator has replayed them and restarted it.
+ */
+@Slf4j
+final class LedgerJournal implements Runnable {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long RETRY_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final RingBuffer<JournalEntry> entries;
+    private final JdbcTemplate jdbcTemplate;
+    private final LedgerService ledgerService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private volatile boolean running = true;
+    private volatile boolean halted;
+
+    LedgerJournal(int capacity, int batchSize, int maxAttempts, JdbcTemplate jdbcTemplate, LedgerService ledgerService,
+                  TransactionTemplate transactionTemplate) {
+        this.entries = new RingBuffer<>(capacity);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.jdbcTemplate = jdbcTemplate;
+        this.ledgerService = ledgerService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Called by shard threads. Spins while the writer is behind, which pushes back
+     * on the shards and in turn on clients.
+     */
+    void append(JournalEntry entry) {
+        while (!entries.offer(entry)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * True once a movement could not be journaled and was dead-lettered
+     */
+    boolean isHalted() {
+        return halted;
+    }
+
+    /**
+     * Stop after everything already appended has been written
+     */
+    void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        List<JournalEntry> batch = new ArrayList<>(batchSize);
+        int attempts = 0;
+        while (true) {
+            JournalEntry entry;
+            while (batch.size() < batchSize && (entry = entries.poll()) != null) {
+                batch.add(entry);
+            }
+
+            if (batch.isEmpty()) {
+                if (!running) {
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                if (++attempts < maxAttempts) {
+                    log.error("Failed to journal {} ledger entries (attempt {} of {}), retrying: {}",
+                            batch.size(), attempts, maxAttempts, e.getMessage(), e);
+                    LockSupport.parkNanos(RETRY_BACKOFF_NANOS);
+                    continue;
+                }
+                // Isolate the entries that cannot be written so the rest still reach the database
+                writeOneByOne(batch);
+            }
+            batch.clear();
+            attempts = 0;
+        }
+    }
+
+    private void writeOneByOne(List<JournalEntry> batch) {
+        for (JournalEntry entry : batch) {
+            try {
+                write(List.of(entry));
+            } catch (RuntimeException e) {
+                deadLetter(entry, e);
+            }
+        }
+    }
+
+    private void deadLetter(JournalEntry entry, RuntimeException failure) {
+        halted = true;
+        log.error("Ledger engine halted: could not journal {}: {}", entry, failure.getMessage(), failure);
+        try {
+            jdbcTemplate.update(
+                    "INSERT INTO ledger_journal_dead_letters (transaction_id, source_account_id, " +
+                            "destination_account_id, amount, description, applied_at, error) " +
+                            "VALUES (?, ?, ?, ?, ?, ?, ?)",
+                    entry.transactionId(), entry.sourceAccountId(), entry.destinationAccountId(), entry.amount(),
+                    entry.description(), Timestamp.valueOf(entry.timestamp()), String.valueOf(failure.getMessage()));
+        } catch (RuntimeException e) {
+            log.error("Could not dead-letter {}; this log line is its only record: {}", entry, e.getMessage());
+        }
+    }
+
+    private void write(List<JournalEntry> batch) {
+        Map<Long, BigDecimal> balanceChanges = new TreeMap<>();
+        List<Object[]> transactionRows = new ArrayList<>();
+        List<LedgerService.Movement> movements = new ArrayList<>(batch.size());
+
+        for (JournalEntry entry : batch) {
+            movements.add(toMovement(entry));
+            if (entry.sourceAccountId() != null) {
+                balanceChanges.merge(entry.sourceAccountId(), entry.amount().negate(), BigDecimal::add);
+            }
+            if (entry.destinationAccountId() != null) {
+                balanceChanges.merge(entry.destinationAccountId(), entry.amount(), BigDecimal::add);
+            }
+            if (entry.transactionId() != null) {
+                transactionRows.add(new Object[]{
+                        entry.transactionId(),
+                        entry.sourceAccountId(),
+                        entry.destinationAccountId(),
+                        entry.amount(),
+                        entry.description(),
+                        Timestamp.valueOf(entry.timestamp())
+                });
+            }
+        }
+
+        List<Object[]> balanceRows = new ArrayList<>(balanceChanges.size());
+        balanceChanges.forEach((accountId, change) -> {
+            if (change.signum() != 0) {
+                balanceRows.add(new Object[]{change, accountId});
+            }
+        });
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(
+                    "UPDATE accounts SET balance = balance + ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?",
+                    balanceRows);
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO transactions (transaction_id, source_account_id, destination_account_id, amount, " +
+                            "type, status, description, timestamp) " +
+                            "VALUES (?, ?, ?, ?, 'TRANSFER', 'COMPLETED', ?, ?)",
+                    transactionRows);
+            ledgerService.record(movements);
+        });
+    }
+
+    private LedgerService.Movement toMovement(JournalEntry entry) {
+        if (entry.sourceAccountId() == null) {
+            return LedgerService.Movement.deposit(entry.destinationAccountId(), entry.amount());
+        }
+        if (entry.destinationAccountId() == null) {
+            return LedgerService.Movement.withdrawal(entry.sourceAccountId(), entry.amount());
+        }
+        return LedgerService.Movement.transfer(entry.transactionId(), entry.sourceAccountId(),
+                entry.destinationAccountId(), entry.amount());
+    }
+}
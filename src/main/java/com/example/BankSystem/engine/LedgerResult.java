@@ -0,0 +1,22 @@
+package com.example.BankSystem.engine;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a command applied by the ledger engine. {@code balance} is the new
+ * balance of the account a deposit or withdrawal was applied to.
+ * <p>
+ * A pending result means the command was still being applied when the caller stopped
+ * waiting: it may or may not take effect, and only the transaction id is known.
+ */
+public record LedgerResult(String transactionId, LocalDateTime timestamp, BigDecimal balance, boolean pending) {
+
+    public LedgerResult(String transactionId, LocalDateTime timestamp, BigDecimal balance) {
+        this(transactionId, timestamp, balance, false);
+    }
+
+    static LedgerResult pending(String transactionId) {
+        return new LedgerResult(transactionId, null, null, true);
+    }
+}
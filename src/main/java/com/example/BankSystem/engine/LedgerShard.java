@@ -0,0 +1,259 @@
+package com.example.BankSystem.engine;
+
+import com.example.BankSystem.exception.AccountClosedException;
+import com.example.BankSystem.exception.InsufficientFundsException;
+import com.example.BankSystem.exception.ResourceNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Owns the balances of every account hashed to it. A single thread applies all
+ * commands, so checks and updates need no locks. Client commands arrive through a
+ * bounded ring buffer; messages from other shards use a separate unbounded queue so
+ * two busy shards can never block each other.
+ */
+@Slf4j
+final class LedgerShard implements Runnable {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final int SPINS_BEFORE_PARK = 100;
+
+    private final int index;
+    private final Function<String, LedgerShard> router;
+    private final Consumer<JournalEntry> journal;
+    private final Function<String, Optional<AccountState>> accountLoader;
+    private final Map<String, AccountState> accounts = new HashMap<>();
+    private final RingBuffer<LedgerCommand> inbox;
+    private final Queue<LedgerCommand> shardInbox = new ConcurrentLinkedQueue<>();
+    // Changed outside the engine; reloaded on next use
+    private final Set<String> staleAccounts = ConcurrentHashMap.newKeySet();
+    private volatile boolean running = true;
+
+    LedgerShard(int index, int inboxCapacity, Function<String, LedgerShard> router, Consumer<JournalEntry> journal,
+                Function<String, Optional<AccountState>> accountLoader) {
+        this.index = index;
+        this.router = router;
+        this.journal = journal;
+        this.accountLoader = accountLoader;
+        this.inbox = new RingBuffer<>(inboxCapacity);
+    }
+
+    /**
+     * Only valid before the shard thread is started
+     */
+    void recover(AccountState account) {
+        accounts.put(account.accountNumber, account);
+    }
+
+    boolean submit(LedgerCommand command) {
+        return inbox.offer(command);
+    }
+
+    void forward(LedgerCommand command) {
+        shardInbox.add(command);
+    }
+
+    void markStale(String accountNumber) {
+        staleAccounts.add(accountNumber);
+    }
+
+    void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        int idleSpins = 0;
+        while (running) {
+            LedgerCommand command = shardInbox.poll();
+            if (command == null) {
+                command = inbox.poll();
+                // A client that gave up waiting cancelled it; it must not be applied now
+                if (command != null && !command.start()) {
+                    continue;
+                }
+            }
+            if (command == null) {
+                if (++idleSpins > SPINS_BEFORE_PARK) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                continue;
+            }
+            idleSpins = 0;
+
+            try {
+                handle(command);
+            } catch (RuntimeException e) {
+                log.error("Ledger shard {} failed to apply {} command: {}", index, command.kind, e.getMessage(), e);
+                command.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void handle(LedgerCommand command) {
+        switch (command.kind) {
+            case TRANSFER -> handleTransfer(command);
+            case CREDIT -> handleCredit(command);
+            case REFUND -> handleRefund(command);
+            case DEPOSIT -> handleDeposit(command);
+            case WITHDRAW -> handleWithdraw(command);
+        }
+    }
+
+    private void handleTransfer(LedgerCommand command) {
+        AccountState source = account(command.accountNumber);
+        if (source == null) {
+            command.result.completeExceptionally(
+                    new ResourceNotFoundException("Account", "accountNumber", command.accountNumber));
+            return;
+        }
+        if (!source.isActive()) {
+            command.result.completeExceptionally(new AccountClosedException("Source account is not active"));
+            return;
+        }
+        if (source.balance.compareTo(command.amount) < 0) {
+            command.result.completeExceptionally(new InsufficientFundsException("Insufficient funds in source account"));
+            return;
+        }
+
+        if (router.apply(command.counterpartyNumber) != this) {
+            // Cross-shard: reserve the money here, the destination shard completes or refunds it
+            source.balance = source.balance.subtract(command.amount);
+            LedgerCommand credit = new LedgerCommand(LedgerCommand.Kind.CREDIT, command.counterpartyNumber,
+                    command.accountNumber, command.amount, command.transactionId, command.description, command.result);
+            credit.sourceAccountId = source.id;
+            router.apply(command.counterpartyNumber).forward(credit);
+            return;
+        }
+
+        AccountState destination = account(command.counterpartyNumber);
+        if (destination == null) {
+            command.result.completeExceptionally(
+                    new ResourceNotFoundException("Account", "accountNumber", command.counterpartyNumber));
+            return;
+        }
+        if (!destination.isActive()) {
+            command.result.completeExceptionally(new AccountClosedException("Destination account is not active"));
+            return;
+        }
+
+        source.balance = source.balance.subtract(command.amount);
+        destination.balance = destination.balance.add(command.amount);
+        complete(command, source.id, destination.id, null);
+    }
+
+    private void handleCredit(LedgerCommand command) {
+        AccountState destination = account(command.accountNumber);
+        if (destination == null || !destination.isActive()) {
+            router.apply(command.counterpartyNumber).forward(new LedgerCommand(LedgerCommand.Kind.REFUND,
+                    command.counterpartyNumber, null, command.amount, null, null, command.result));
+            command.result.completeExceptionally(destination == null
+                    ? new ResourceNotFoundException("Account", "accountNumber", command.accountNumber)
+                    : new AccountClosedException("Destination account is not active"));
+            return;
+        }
+
+        destination.balance = destination.balance.add(command.amount);
+        complete(command, command.sourceAccountId, destination.id, null);
+    }
+
+    private void handleRefund(LedgerCommand command) {
+        // The debit was never journaled, so only the in-memory reservation is undone
+        AccountState source = accounts.get(command.accountNumber);
+        if (source != null) {
+            source.balance = source.balance.add(command.amount);
+        }
+    }
+
+    private void handleDeposit(LedgerCommand command) {
+        AccountState account = account(command.accountNumber);
+        if (account == null) {
+            command.result.completeExceptionally(
+                    new ResourceNotFoundException("Account", "accountNumber", command.accountNumber));
+            return;
+        }
+        if (!account.isActive()) {
+            command.result.completeExceptionally(new AccountClosedException("Cannot deposit to a non-active account"));
+            return;
+        }
+
+        account.balance = account.balance.add(command.amount);
+        complete(command, null, account.id, account);
+    }
+
+    private void handleWithdraw(LedgerCommand command) {
+        AccountState account = account(command.accountNumber);
+        if (account == null) {
+            command.result.completeExceptionally(
+                    new ResourceNotFoundException("Account", "accountNumber", command.accountNumber));
+            return;
+        }
+        if (!account.isActive()) {
+            command.result.completeExceptionally(new AccountClosedException("Cannot withdraw from a non-active account"));
+            return;
+        }
+        if (account.balance.compareTo(command.amount) < 0) {
+            command.result.completeExceptionally(new InsufficientFundsException("Insufficient funds"));
+            return;
+        }
+
+        account.balance = account.balance.subtract(command.amount);
+        complete(command, account.id, null, account);
+    }
+
+    private void complete(LedgerCommand command, Long sourceAccountId, Long destinationAccountId, AccountState account) {
+        LocalDateTime timestamp = LocalDateTime.now();
+        journal.accept(new JournalEntry(command.transactionId, sourceAccountId, destinationAccountId,
+                command.amount, command.description, timestamp));
+        command.result.complete(new LedgerResult(command.transactionId, timestamp,
+                account != null ? account.balance : null));
+    }
+
+    // Accounts created after startup are loaded on first use, stale ones reloaded then
+    private AccountState account(String accountNumber) {
+        if (staleAccounts.remove(accountNumber)) {
+            reload(accountNumber);
+        }
+        AccountState account = accounts.get(accountNumber);
+        if (account == null) {
+            account = accountLoader.apply(accountNumber).orElse(null);
+            if (account != null) {
+                accounts.put(accountNumber, account);
+            }
+        }
+        return account;
+    }
+
+    private void reload(String accountNumber) {
+        Optional<AccountState> stored;
+        try {
+            stored = accountLoader.apply(accountNumber);
+        } catch (RuntimeException e) {
+            // Fail this command rather than serve an old status; the next one retries
+            staleAccounts.add(accountNumber);
+            throw e;
+        }
+
+        AccountState cached = accounts.get(accountNumber);
+        if (stored.isEmpty()) {
+            accounts.remove(accountNumber);
+        } else if (cached == null) {
+            accounts.put(accountNumber, stored.get());
+        } else {
+            // The balance is owned here; only the status can change outside the engine
+            cached.status = stored.get().status;
+        }
+    }
+}
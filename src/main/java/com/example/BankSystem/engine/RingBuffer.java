@@ -0,0 +1,71 @@
+package com.example.BankSystem.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free multi-producer / single-consumer ring buffer
+ * (sequence-per-slot design). Producers claim a slot with one CAS; the single
+ * consumer never contends with them.
+ */
+final class RingBuffer<E> {
+
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong producerPosition = new AtomicLong();
+    private long consumerPosition;
+
+    RingBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        this.elements = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Returns false when the buffer is full
+     */
+    boolean offer(E element) {
+        long position = producerPosition.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (producerPosition.compareAndSet(position, position + 1)) {
+                    elements[index] = element;
+                    // Publishes the element: the consumer reads it only after seeing this sequence
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = producerPosition.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = producerPosition.get();
+            }
+        }
+    }
+
+    /**
+     * Returns null when the buffer is empty. Must only be called from the consumer thread.
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        long position = consumerPosition;
+        int index = (int) (position & mask);
+        if (sequences.get(index) - (position + 1) < 0) {
+            return null;
+        }
+        E element = (E) elements[index];
+        elements[index] = null;
+        sequences.set(index, position + mask + 1);
+        consumerPosition = position + 1;
+        return element;
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.BankSystem.enums;
+
+public enum ExportFormat {
+    NDJSON,
+    CSV,
+}
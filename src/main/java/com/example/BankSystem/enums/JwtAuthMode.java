@@ -0,0 +1,6 @@
+package com.example.BankSystem.enums;
+
+public enum JwtAuthMode {
+    DATABASE,  // Load the user and roles from the database on every request
+    STATELESS, // Trust the subject and roles claims of the verified token
+}
@@ -0,0 +1,8 @@
+package com.example.BankSystem.enums;
+
+public enum LedgerEntryType {
+    OPENING,
+    TRANSFER,
+    DEPOSIT,
+    WITHDRAWAL,
+}
@@ -0,0 +1,101 @@
+package com.example.BankSystem.export;
+
+import com.example.BankSystem.dto.TransactionDto;
+import com.example.BankSystem.enums.ExportFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes transactions one at a time as NDJSON lines or CSV rows, so an export never
+ * holds more than one row in memory besides the output buffer.
+ */
+public class TransactionExportWriter {
+
+    private static final String CSV_HEADER =
+            "id,transactionId,sourceAccountNumber,destinationAccountNumber,amount,type,status,description,timestamp";
+
+    private final ExportFormat format;
+    private final ObjectWriter jsonWriter;
+    private final BufferedWriter writer;
+
+    public TransactionExportWriter(ExportFormat format, ObjectMapper objectMapper, OutputStream outputStream) {
+        this.format = format;
+        this.jsonWriter = objectMapper.writerFor(TransactionDto.class);
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writeLine(CSV_HEADER);
+        }
+    }
+
+    public void write(TransactionDto transaction) {
+        try {
+            writeLine(format == ExportFormat.CSV ? toCsv(transaction) : jsonWriter.writeValueAsString(transaction));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Push buffered rows to the client so a long export shows progress
+     */
+    public void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static String contentType(ExportFormat format) {
+        return format == ExportFormat.CSV ? "text/csv" : "application/x-ndjson";
+    }
+
+    public static String fileExtension(ExportFormat format) {
+        return format == ExportFormat.CSV ? "csv" : "ndjson";
+    }
+
+    // Helper methods
+    private void writeLine(String line) {
+        try {
+            writer.write(line);
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String toCsv(TransactionDto transaction) {
+        return String.join(",",
+                csv(transaction.getId()),
+                csv(transaction.getTransactionId()),
+                csv(transaction.getSourceAccountNumber()),
+                csv(transaction.getDestinationAccountNumber()),
+                csv(transaction.getAmount() != null ? transaction.getAmount().toPlainString() : null),
+                csv(transaction.getType()),
+                csv(transaction.getStatus()),
+                csv(transaction.getDescription()),
+                csv(transaction.getTimestamp()));
+    }
+
+    private String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        // Keep spreadsheets from evaluating user-supplied text as a formula
+        if (!text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0 && !(value instanceof Number)) {
+            text = "'" + text;
+        }
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            text = "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.BankSystem.id;
+
+import java.util.UUID;
+
+/**
+ * Random (version 4) UUIDs, the original scheme. Ids are unordered, so inserts
+ * land at random points of the transaction_id index.
+ */
+public class RandomUuidTransactionIdGenerator implements TransactionIdGenerator {
+
+    @Override
+    public String nextId() {
+        return UUID.randomUUID().toString();
+    }
+}
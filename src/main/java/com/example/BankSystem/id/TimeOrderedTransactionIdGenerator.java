@@ -0,0 +1,84 @@
+package com.example.BankSystem.id;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered ids in the UUID version 7 layout:
+ * <pre>
+ *   48 bits  unix epoch milliseconds
+ *    4 bits  version (7)
+ *   12 bits  per-millisecond sequence
+ *    2 bits  variant
+ *   10 bits  node id
+ *   52 bits  random
+ * </pre>
+ * Ids from one node are strictly increasing, both as UUIDs and as strings, so new rows
+ * are always appended to the right edge of the transaction_id index. When more than
+ * 4096 ids are requested within one millisecond the timestamp runs slightly ahead of
+ * the clock instead of repeating. The node id keeps instances from colliding, and the
+ * random bits come from ThreadLocalRandom rather than the shared SecureRandom.
+ */
+public class TimeOrderedTransactionIdGenerator implements TransactionIdGenerator {
+
+    public static final int MAX_NODE_ID = (1 << 10) - 1;
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final long RANDOM_MASK = (1L << 52) - 1;
+    private static final long VERSION_BITS = 0x7L << 12;
+    private static final long VARIANT_BITS = 0x2L << 62;
+
+    private final long nodeBits;
+    private final LongSupplier clock;
+    private final AtomicLong lastState = new AtomicLong();
+
+    public TimeOrderedTransactionIdGenerator(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    TimeOrderedTransactionIdGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeBits = (long) nodeId << 52;
+        this.clock = clock;
+    }
+
+    @Override
+    public String nextId() {
+        long state = nextState();
+        long millis = state >>> SEQUENCE_BITS;
+        long sequence = state & ((1L << SEQUENCE_BITS) - 1);
+
+        long mostSignificant = (millis << 16) | VERSION_BITS | sequence;
+        long leastSignificant = VARIANT_BITS | nodeBits | (ThreadLocalRandom.current().nextLong() & RANDOM_MASK);
+        return new UUID(mostSignificant, leastSignificant).toString();
+    }
+
+    /**
+     * Returns the creation time encoded in an id produced by this generator,
+     * or -1 if the id is not a version 7 UUID
+     */
+    public static long extractEpochMillis(String transactionId) {
+        try {
+            UUID uuid = UUID.fromString(transactionId);
+            return uuid.version() == 7 ? uuid.getMostSignificantBits() >>> 16 : -1;
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    // (millis << 12 | sequence), advanced with a CAS so it never goes backwards
+    private long nextState() {
+        long candidate = clock.getAsLong() << SEQUENCE_BITS;
+        while (true) {
+            long last = lastState.get();
+            long next = Math.max(candidate, last + 1);
+            if (lastState.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+}
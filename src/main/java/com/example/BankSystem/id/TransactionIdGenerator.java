@@ -0,0 +1,10 @@
+package com.example.BankSystem.id;
+
+/**
+ * Source of the public transaction_id stored on every Transaction.
+ * Implementations must be thread-safe and return ids of at most 36 characters.
+ */
+public interface TransactionIdGenerator {
+
+    String nextId();
+}
@@ -22,7 +22,8 @@ import lombok.*;
 public class Account {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "accounts_id_seq")
+    @SequenceGenerator(name = "accounts_id_seq", sequenceName = "accounts_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "account_number", nullable = false, unique = true, length = 20)
@@ -32,9 +33,15 @@ public class Account {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @Column(nullable = false, precision = 19, scale = 2)
+    // Balances only move through conditional UPDATEs, never by flushing a loaded entity
+    @Column(nullable = false, precision = 19, scale = 2, updatable = false)
     private BigDecimal balance;
 
+    // Number of account_balance_slots rows holding part of the balance; 0 when not striped
+    @Column(name = "balance_slots", nullable = false)
+    @Builder.Default
+    private Integer balanceSlots = 0;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "account_type", nullable = false)
     private AccountType accountType;
@@ -18,9 +18,11 @@ import java.time.LocalDateTime;
 public class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_id_seq")
+    @SequenceGenerator(name = "transactions_id_seq", sequenceName = "transactions_id_seq", allocationSize = 50)
     private Long id;
 
+    // Enforced by the transaction_ids table (V18): the partitioned table cannot have the constraint
     @Column(name = "transaction_id", nullable = false, unique = true, length = 36)
     private String transactionId;
 
@@ -48,4 +50,7 @@ public class Transaction {
 
     @Column(nullable = false)
     private LocalDateTime timestamp;
+
+    @Column(name = "failure_reason", length = 255)
+    private String failureReason;
 }
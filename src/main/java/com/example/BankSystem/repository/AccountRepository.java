@@ -1,18 +1,31 @@
 package com.example.BankSystem.repository;
 
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import com.example.BankSystem.dto.AccountDto;
 import com.example.BankSystem.model.Account;
 import com.example.BankSystem.model.User;
 import com.example.BankSystem.enums.AccountStatus;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
 @Repository
 public interface AccountRepository extends JpaRepository<Account,Long> {
 
+    String ACCOUNT_DTO_SELECT = "SELECT new com.example.BankSystem.dto.AccountDto(" +
+            "a.id, a.accountNumber, u.id, u.username, a.balance, a.balanceSlots, a.accountType, a.status, " +
+            "a.createdAt, a.updatedAt) " +
+            "FROM Account a JOIN a.user u ";
+
     /**
      * Find an account by its account number
      */
@@ -23,6 +36,12 @@ public interface AccountRepository extends JpaRepository<Account,Long> {
      */
     List<Account> findByUser(User user);
 
+    /**
+     * Find all accounts owned by a specific user, with usernames joined in. Balances exclude striped slots.
+     */
+    @Query(ACCOUNT_DTO_SELECT + "WHERE u.id = :userId ORDER BY a.id")
+    List<AccountDto> findDtosByUserId(@Param("userId") Long userId);
+
     /**
      * Find all accounts owned by a specific user with a specific status
      */
@@ -33,4 +52,43 @@ public interface AccountRepository extends JpaRepository<Account,Long> {
      */
     boolean existsByAccountNumber(String accountNumber);
 
+    /**
+     * Find all accounts with the given account numbers
+     */
+    List<Account> findByAccountNumberIn(Collection<String> accountNumbers);
+
+    /**
+     * Lock the accounts with the given numbers (SELECT ... FOR UPDATE).
+     * Rows are locked in ascending id order so that concurrent callers
+     * locking overlapping sets can never deadlock each other.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.accountNumber IN :accountNumbers ORDER BY a.id")
+    List<Account> lockAllByAccountNumberIn(@Param("accountNumbers") Collection<String> accountNumbers);
+
+    /**
+     * Lock the accounts with the given ids (SELECT ... FOR UPDATE), in ascending id order
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id IN :ids ORDER BY a.id")
+    List<Account> lockAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Atomically add to the balance of an active account.
+     * Returns the number of rows updated: 0 if the account is missing or not active.
+     */
+    @Modifying
+    @Query(value = "UPDATE accounts SET balance = balance + :amount, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE account_number = :accountNumber AND status = 'ACTIVE'", nativeQuery = true)
+    int creditIfActive(@Param("accountNumber") String accountNumber, @Param("amount") BigDecimal amount);
+
+    /**
+     * Atomically subtract from the balance of an active account that holds enough funds.
+     * Returns the number of rows updated: 0 if the account is missing, not active or short of funds.
+     */
+    @Modifying
+    @Query(value = "UPDATE accounts SET balance = balance - :amount, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE account_number = :accountNumber AND status = 'ACTIVE' AND balance >= :amount", nativeQuery = true)
+    int debitIfSufficient(@Param("accountNumber") String accountNumber, @Param("amount") BigDecimal amount);
+
 }
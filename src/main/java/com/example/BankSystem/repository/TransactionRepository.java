@@ -1,26 +1,109 @@
 package com.example.BankSystem.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import com.example.BankSystem.dto.TransactionDto;
+import com.example.BankSystem.dto.TransactionView;
 import com.example.BankSystem.model.Transaction;
 import com.example.BankSystem.model.Account;
-import com.example.BankSystem.enums.TransactionStatus;
-import com.example.BankSystem.enums.TransactionType;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import java.time.LocalDateTime;
 
 
 public interface TransactionRepository extends JpaRepository<Transaction,Long> {
+
+    /*
+     * "Source or destination" lookups are written as a UNION ALL of two range scans, one on
+     * each (account, timestamp, id) index, merged in timestamp order without a sort. The
+     * destination branch skips self transfers, which the source branch already returned.
+     * Rows come back as TransactionView projections with both account numbers joined in,
+     * so no account entity is ever loaded.
+     *
+     * The table is partitioned by month on timestamp. Cursor conditions repeat the bound
+     * on timestamp alone, because the planner prunes partitions on plain comparisons of
+     * the partition key but not on row comparisons.
+     */
+    String TRANSACTION_VIEW_SELECT = "SELECT t.id AS id, t.transaction_id AS \"transactionId\", " +
+            "s.account_number AS \"sourceAccountNumber\", d.account_number AS \"destinationAccountNumber\", " +
+            "t.amount AS amount, CAST(t.type AS VARCHAR) AS type, CAST(t.status AS VARCHAR) AS status, " +
+            "t.description AS description, t.timestamp AS timestamp " +
+            "FROM transactions t " +
+            "LEFT JOIN accounts s ON s.id = t.source_account_id " +
+            "LEFT JOIN accounts d ON d.id = t.destination_account_id ";
+
+    String SOURCE_BRANCH = TRANSACTION_VIEW_SELECT + "WHERE t.source_account_id = :accountId ";
+
+    String DESTINATION_BRANCH = TRANSACTION_VIEW_SELECT + "WHERE t.destination_account_id = :accountId " +
+            "AND t.source_account_id IS DISTINCT FROM :accountId ";
+
+    String ACCOUNT_HISTORY_QUERY = "SELECT * FROM (" +
+            SOURCE_BRANCH + "UNION ALL " + DESTINATION_BRANCH +
+            ") v ORDER BY v.timestamp DESC, v.id DESC";
+
+    String ACCOUNT_HISTORY_COUNT_QUERY = "SELECT " +
+            "(SELECT COUNT(*) FROM transactions WHERE source_account_id = :accountId) + " +
+            "(SELECT COUNT(*) FROM transactions WHERE destination_account_id = :accountId " +
+            "AND source_account_id IS DISTINCT FROM :accountId)";
+
+    String TYPE_AND_STATUS_FILTER =
+            "AND t.type = CAST(:type AS transaction_type) AND t.status = CAST(:status AS transaction_status) ";
+
+    String ACCOUNT_HISTORY_BY_TYPE_AND_STATUS_QUERY = "SELECT * FROM (" +
+            SOURCE_BRANCH + TYPE_AND_STATUS_FILTER + "UNION ALL " + DESTINATION_BRANCH + TYPE_AND_STATUS_FILTER +
+            ") v ORDER BY v.timestamp DESC, v.id DESC";
+
+    // Keyset pages: each branch seeks on its own index and stops after :limit rows before the merge
+    String HISTORY_PAGE_QUERY = "SELECT * FROM (" +
+            "(" + SOURCE_BRANCH + "ORDER BY t.timestamp DESC, t.id DESC LIMIT :limit) " +
+            "UNION ALL " +
+            "(" + DESTINATION_BRANCH + "ORDER BY t.timestamp DESC, t.id DESC LIMIT :limit)" +
+            ") v ORDER BY v.timestamp DESC, v.id DESC LIMIT :limit";
+
+    String OLDER_THAN_CURSOR = "AND t.timestamp <= :timestamp AND (t.timestamp, t.id) < (:timestamp, :id) ";
+
+    String HISTORY_PAGE_AFTER_QUERY = "SELECT * FROM (" +
+            "(" + SOURCE_BRANCH + OLDER_THAN_CURSOR + "ORDER BY t.timestamp DESC, t.id DESC LIMIT :limit) " +
+            "UNION ALL " +
+            "(" + DESTINATION_BRANCH + OLDER_THAN_CURSOR + "ORDER BY t.timestamp DESC, t.id DESC LIMIT :limit)" +
+            ") v ORDER BY v.timestamp DESC, v.id DESC LIMIT :limit";
+
+    String NEWER_THAN_CURSOR = "AND t.timestamp >= :timestamp AND (t.timestamp, t.id) > (:timestamp, :id) ";
+
+    String HISTORY_PAGE_BEFORE_QUERY = "SELECT * FROM (" +
+            "(" + SOURCE_BRANCH + NEWER_THAN_CURSOR + "ORDER BY t.timestamp, t.id LIMIT :limit) " +
+            "UNION ALL " +
+            "(" + DESTINATION_BRANCH + NEWER_THAN_CURSOR + "ORDER BY t.timestamp, t.id LIMIT :limit)" +
+            ") v ORDER BY v.timestamp, v.id LIMIT :limit";
+
+    String TRANSACTION_DTO_SELECT = "SELECT new com.example.BankSystem.dto.TransactionDto(" +
+            "t.id, t.transactionId, s.accountNumber, d.accountNumber, t.amount, t.type, t.status, " +
+            "t.description, t.timestamp) " +
+            "FROM Transaction t LEFT JOIN t.sourceAccount s LEFT JOIN t.destinationAccount d ";
+
+    // Rows the JDBC driver pulls per round trip while a stream is open
+    String EXPORT_FETCH_SIZE = "500";
+
     /**
      * Find a transaction by its unique transaction ID
      */
     Optional<Transaction> findByTransactionId(String transactionId);
 
+    /**
+     * Find a transaction by its transaction ID within a time window, scanning only the partitions it overlaps
+     */
+    Optional<Transaction> findByTransactionIdAndTimestampBetween(String transactionId, LocalDateTime from,
+                                                                 LocalDateTime to);
+
     /**
      * Find all transactions where the specified account is the source
      */
@@ -32,35 +115,78 @@ public interface TransactionRepository extends JpaRepository<Transaction,Long> {
     List<Transaction> findByDestinationAccount(Account account);
 
     /**
-     * Find all transactions involving the specified account (as source or destination)
+     * Find all transactions, with account numbers joined in, in id order
+     */
+    @Query(TRANSACTION_DTO_SELECT + "ORDER BY t.id")
+    List<TransactionDto> findAllAsDto();
+
+    /**
+     * Find all transactions involving the specified account (as source or destination), newest first
+     */
+    @Query(value = ACCOUNT_HISTORY_QUERY, nativeQuery = true)
+    List<TransactionView> findByAccount(@Param("accountId") Long accountId);
+
+    /**
+     * Find all transactions involving the specified account (as source or destination) with pagination, newest first
+     */
+    @Query(value = ACCOUNT_HISTORY_QUERY, countQuery = ACCOUNT_HISTORY_COUNT_QUERY, nativeQuery = true)
+    Page<TransactionView> findByAccount(@Param("accountId") Long accountId, Pageable pageable);
+
+    /**
+     * Newest transactions involving an account, as the first page of a keyset-paginated history
+     */
+    @Query(value = HISTORY_PAGE_QUERY, nativeQuery = true)
+    List<TransactionView> findHistoryPage(@Param("accountId") Long accountId, @Param("limit") int limit);
+
+    /**
+     * Transactions involving an account that are older than the (timestamp, id) cursor, newest first
      */
-    @Query("SELECT t FROM Transaction t WHERE t.sourceAccount = ?1 OR t.destinationAccount = ?1")
-    List<Transaction> findByAccount(Account account);
+    @Query(value = HISTORY_PAGE_AFTER_QUERY, nativeQuery = true)
+    List<TransactionView> findHistoryPageAfter(@Param("accountId") Long accountId,
+                                               @Param("timestamp") LocalDateTime timestamp,
+                                               @Param("id") Long id,
+                                               @Param("limit") int limit);
 
     /**
-     * Find all transactions involving the specified account (as source or destination) with pagination
+     * Transactions involving an account that are newer than the (timestamp, id) cursor, oldest first
      */
-    @Query("SELECT t FROM Transaction t WHERE t.sourceAccount = ?1 OR t.destinationAccount = ?1")
-    Page<Transaction> findByAccount(Account account, Pageable pageable);
+    @Query(value = HISTORY_PAGE_BEFORE_QUERY, nativeQuery = true)
+    List<TransactionView> findHistoryPageBefore(@Param("accountId") Long accountId,
+                                                @Param("timestamp") LocalDateTime timestamp,
+                                                @Param("id") Long id,
+                                                @Param("limit") int limit);
 
     /**
-     * Find all transactions that occurred between the specified dates
+     * Stream every transaction with its account numbers, for exports. Must be consumed inside a
+     * transaction; rows are fetched from a server-side cursor in blocks of EXPORT_FETCH_SIZE.
      */
-    List<Transaction> findByTimestampBetween(LocalDateTime startDate, LocalDateTime endDate);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(TRANSACTION_DTO_SELECT + "ORDER BY t.id")
+    Stream<TransactionDto> streamAll();
 
     /**
-     * Find all transactions of a specific type
+     * Stream the transactions involving an account, newest first, for exports
      */
-    List<Transaction> findByType(TransactionType type);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(value = ACCOUNT_HISTORY_QUERY, nativeQuery = true)
+    Stream<TransactionView> streamByAccount(@Param("accountId") Long accountId);
 
     /**
-     * Find all transactions with a specific status
+     * Find all transactions involving an account with a specific type and status, newest first.
+     * Type and status are passed as their database enum labels.
      */
-    List<Transaction> findByStatus(TransactionStatus status);
+    @Query(value = ACCOUNT_HISTORY_BY_TYPE_AND_STATUS_QUERY, nativeQuery = true)
+    List<TransactionView> findByAccountAndTypeAndStatus(@Param("accountId") Long accountId,
+                                                    @Param("type") String type,
+                                                    @Param("status") String status);
 
     /**
-     * Find all transactions involving an account with a specific type and status
+     * Claim the oldest pending transfers for processing. Rows already claimed by
+     * another worker are skipped rather than waited on, as are rows waiting out the
+     * delay after a failed attempt.
      */
-    @Query("SELECT t FROM Transaction t WHERE (t.sourceAccount = ?1 OR t.destinationAccount = ?1) AND t.type = ?2 AND t.status = ?3")
-    List<Transaction> findByAccountAndTypeAndStatus(Account account, TransactionType type, TransactionStatus status);
+    @Query(value = "SELECT * FROM transactions WHERE status = 'PENDING' " +
+            "AND (next_attempt_at IS NULL OR next_attempt_at <= CURRENT_TIMESTAMP) ORDER BY id LIMIT :limit " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Transaction> claimPendingTransfers(@Param("limit") int limit);
 }
@@ -3,8 +3,12 @@ package com.example.BankSystem.repository;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import com.example.BankSystem.model.User;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -31,4 +35,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     boolean existsByEmail(String email);
 
+    /**
+     * Load users with their roles fetch-joined, in id order
+     */
+    @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.roles WHERE u.id IN :ids ORDER BY u.id")
+    List<User> findAllWithRolesByIdIn(@Param("ids") Collection<Long> ids);
+
 }
@@ -0,0 +1,97 @@
+package com.example.BankSystem.security;
+
+import com.example.BankSystem.cache.BoundedLruCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Owners of recently checked accounts, by account id and by account number, so repeated
+ * authorization checks need no queries. Owners are user ids rather than usernames: ids
+ * are never renamed or reused, so an entry can never vouch for the wrong user.
+ * <p>
+ * A miss loads just the account asked for. Entries expire after the TTL, which bounds
+ * how long an owner changed directly in the database goes unnoticed, and the LRU bound
+ * caps memory however many accounts there are.
+ */
+@Component
+public class AccountOwnershipIndex {
+
+    private static final String OWNER_SELECT = "SELECT id, account_number, user_id FROM accounts";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BoundedLruCache<Long, Owner> ownersById;
+    private final BoundedLruCache<String, Owner> ownersByNumber;
+    private final long ttlMillis;
+
+    @Autowired
+    public AccountOwnershipIndex(
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.security.ownership-index.max-size:100000}") int maxSize,
+            @Value("${app.security.ownership-index.ttl:PT5M}") Duration ttl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ownersById = new BoundedLruCache<>(maxSize);
+        this.ownersByNumber = new BoundedLruCache<>(maxSize);
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    public boolean isOwner(Long accountId, Long userId) {
+        return userId != null && userId.equals(ownerOf(ownersById, accountId, " WHERE id = ?"));
+    }
+
+    public boolean isOwner(String accountNumber, Long userId) {
+        return userId != null && userId.equals(ownerOf(ownersByNumber, accountNumber, " WHERE account_number = ?"));
+    }
+
+    public void accountCreated(Long accountId, String accountNumber, Long userId) {
+        afterCommit(() -> put(accountId, accountNumber, userId));
+    }
+
+    // Helper methods
+    private <K> Long ownerOf(BoundedLruCache<K, Owner> owners, K key, String where) {
+        Owner owner = owners.get(key);
+        if (owner != null && owner.expiresAt() > System.currentTimeMillis()) {
+            return owner.userId();
+        }
+
+        Long userId = jdbcTemplate.query(OWNER_SELECT + where, (rs, rowNum) -> {
+                    long ownerId = rs.getLong("user_id");
+                    put(rs.getLong("id"), rs.getString("account_number"), ownerId);
+                    return ownerId;
+                }, key)
+                .stream()
+                .findFirst()
+                .orElse(null);
+        if (userId == null) {
+            owners.remove(key);
+        }
+        return userId;
+    }
+
+    private void put(Long accountId, String accountNumber, Long userId) {
+        Owner owner = new Owner(userId, System.currentTimeMillis() + ttlMillis);
+        ownersById.put(accountId, owner);
+        ownersByNumber.put(accountNumber, owner);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record Owner(long userId, long expiresAt) {
+    }
+}
@@ -1,48 +1,56 @@
 package com.example.BankSystem.security;
 
-import com.example.BankSystem.model.Account;
-import com.example.BankSystem.repository.AccountRepository;
+import com.example.BankSystem.dto.BatchTransferRequest;
+import com.example.BankSystem.dto.TransferRequest;
+import com.example.BankSystem.dto.TransferResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
+/**
+ * Ownership checks for @PreAuthorize expressions, answered from the in-memory
+ * {@link AccountOwnershipIndex} by comparing the owner's user id with the caller's.
+ */
 @Component("accountSecurity")
 public class AccountSecurity {
 
-    private final AccountRepository accountRepository;
+    private final AccountOwnershipIndex ownershipIndex;
 
     @Autowired
-    public AccountSecurity(AccountRepository accountRepository) {
-        this.accountRepository = accountRepository;
+    public AccountSecurity(AccountOwnershipIndex ownershipIndex) {
+        this.ownershipIndex = ownershipIndex;
     }
 
     public boolean canAccessAccount(Long accountId) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String currentUsername = authentication.getName();
-
-        return accountRepository.findById(accountId)
-                .map(account -> account.getUser().getUsername().equals(currentUsername))
-                .orElse(false);
+        return ownershipIndex.isOwner(accountId, currentUserId());
     }
 
     public boolean canAccessAccountByNumber(String accountNumber) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String currentUsername = authentication.getName();
+        return ownershipIndex.isOwner(accountNumber, currentUserId());
+    }
 
-        return accountRepository.findByAccountNumber(accountNumber)
-                .map(account -> account.getUser().getUsername().equals(currentUsername))
-                .orElse(false);
+    // Owners of either side of a transfer may see it
+    public boolean canAccessTransfer(TransferResponse transfer) {
+        return (transfer.getSourceAccountNumber() != null
+                && ownershipIndex.isOwner(transfer.getSourceAccountNumber(), currentUserId()))
+                || (transfer.getDestinationAccountNumber() != null
+                && ownershipIndex.isOwner(transfer.getDestinationAccountNumber(), currentUserId()));
     }
 
     // Additional helper method to check if user can access accounts for transfers
     public boolean canTransferFromAccount(String accountNumber) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String currentUsername = authentication.getName();
+        return ownershipIndex.isOwner(accountNumber, currentUserId());
+    }
 
-        return accountRepository.findByAccountNumber(accountNumber)
-                .map(account -> account.getUser().getUsername().equals(currentUsername))
-                .orElse(false);
+    // Every item must debit an account of the caller. Stops at the first source the caller
+    // does not own, so lookups are bounded by the number of accounts the caller has
+    public boolean canTransferBatch(BatchTransferRequest batchRequest) {
+        Long currentUserId = currentUserId();
+        return batchRequest.getTransfers().stream()
+                .map(TransferRequest::getSourceAccountNumber)
+                .distinct()
+                .allMatch(accountNumber -> accountNumber != null && ownershipIndex.isOwner(accountNumber, currentUserId));
     }
 
     // Method to check if admin or account owner
@@ -58,9 +66,12 @@ public class AccountSecurity {
         }
 
         // If not admin, check if user is the account owner
-        String currentUsername = authentication.getName();
-        return accountRepository.findByAccountNumber(accountNumber)
-                .map(account -> account.getUser().getUsername().equals(currentUsername))
-                .orElse(false);
+        return ownershipIndex.isOwner(accountNumber, currentUserId());
+    }
+
+    // Helper methods
+    // Null when the caller carries no user id, which no account matches
+    private Long currentUserId() {
+        return UserPrincipal.currentId();
     }
 }
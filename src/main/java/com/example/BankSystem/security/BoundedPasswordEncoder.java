@@ -0,0 +1,155 @@
+package com.example.BankSystem.security;
+
+import com.example.BankSystem.dto.PasswordHashingStatsDto;
+import com.example.BankSystem.exception.TooManyRequestsException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt on a small dedicated pool instead of the request threads. At most `threads`
+ * hashes run at once and up to queueCapacity wait for a thread; beyond that, or when
+ * a hash has waited longer than the timeout, the caller gets a 429 straight away so a
+ * login storm cannot take the CPU from transfers and balance reads.
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    // Version and cost prefix of a BCrypt hash, e.g. $2a$10$
+    private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private final PasswordEncoder delegate;
+    private final int strength;
+    private final int queueCapacity;
+    private final long timeoutNanos;
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+
+    public BoundedPasswordEncoder(int strength, int threads, int queueCapacity, Duration timeout) {
+        this(new BCryptPasswordEncoder(strength), strength, threads, queueCapacity, timeout);
+    }
+
+    // Tests pass a delegate they can hold up
+    BoundedPasswordEncoder(PasswordEncoder delegate, int strength, int threads, int queueCapacity, Duration timeout) {
+        this.delegate = delegate;
+        this.strength = strength;
+        this.queueCapacity = queueCapacity;
+        this.timeoutNanos = timeout.toNanos();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * True for BCrypt hashes made with any other work factor, lower or higher; Spring Security
+     * then rehashes the password on the next successful login. BCryptPasswordEncoder alone only
+     * upgrades lower ones, so lowering the strength would never take effect.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.isEmpty()) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find()
+                ? Integer.parseInt(matcher.group(1)) != strength
+                : delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public PasswordHashingStatsDto getStats() {
+        long count = completed.sum();
+        return PasswordHashingStatsDto.builder()
+                .strength(strength)
+                .threads(executor.getMaximumPoolSize())
+                .queueCapacity(queueCapacity)
+                .queueDepth(executor.getQueue().size())
+                .active(executor.getActiveCount())
+                .completed(count)
+                .rejected(rejected.sum())
+                .averageHashMillis(count == 0 ? 0 : hashNanos.sum() / 1e6 / count)
+                .averageQueueWaitMillis(count == 0 ? 0 : queueWaitNanos.sum() / 1e6 / count)
+                .build();
+    }
+
+    // Called by the container on shutdown
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // Helper methods
+    private <T> T execute(Callable<T> hash) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                queueWaitNanos.add(startedAt - submittedAt);
+                try {
+                    return hash.call();
+                } finally {
+                    hashNanos.add(System.nanoTime() - startedAt);
+                    completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return reject("Password hashing queue is full");
+        }
+
+        try {
+            return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            return reject("Password hashing timed out");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing");
+        }
+    }
+
+    private <T> T reject(String reason) {
+        rejected.increment();
+        log.warn("{}; rejecting request", reason);
+        throw new TooManyRequestsException("Too many authentication requests, please retry shortly");
+    }
+}
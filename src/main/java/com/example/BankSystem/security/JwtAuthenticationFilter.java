@@ -1,11 +1,14 @@
 package com.example.BankSystem.security;
+import com.example.BankSystem.enums.JwtAuthMode;
 import com.example.BankSystem.service.CustomUserDetailsService;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -15,17 +18,21 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Objects;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider jwtTokenProvider;
     private final CustomUserDetailsService customUserDetailsService;
+    private final JwtAuthMode authMode;
 
     @Autowired
-    public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider, CustomUserDetailsService customUserDetailsService) {
+    public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider, CustomUserDetailsService customUserDetailsService,
+                                   @Value("${app.jwt.auth-mode:DATABASE}") JwtAuthMode authMode) {
         this.jwtTokenProvider = jwtTokenProvider;
         this.customUserDetailsService = customUserDetailsService;
+        this.authMode = authMode;
     }
 
     @Override
@@ -36,13 +43,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Get JWT token from request
         String token = getJwtFromRequest(request);
 
-        // Validate token
-        if (StringUtils.hasText(token) && jwtTokenProvider.validateToken(token)) {
-            // Get username from token
-            String username = jwtTokenProvider.getUsernameFromToken(token);
+        // Validate token and read its claims in one pass
+        Claims claims = StringUtils.hasText(token) ? jwtTokenProvider.parseClaims(token) : null;
+        if (claims != null) {
+            // Stateless mode takes the user from the token itself: no database round trip,
+            // but role changes and deletions only apply once the token expires
+            Long userId = jwtTokenProvider.getUserId(claims);
+            UserDetails userDetails = authMode == JwtAuthMode.STATELESS
+                    ? new UserPrincipal(userId, claims.getSubject(), "", jwtTokenProvider.getAuthorities(claims))
+                    : customUserDetailsService.loadUserByUsername(claims.getSubject());
 
-            // Load user details
-            UserDetails userDetails = customUserDetailsService.loadUserByUsername(username);
+            // A token for a since renamed or deleted user must not pass as whoever holds the name now
+            if (userId != null && userDetails instanceof UserPrincipal principal
+                    && !Objects.equals(userId, principal.getId())) {
+                filterChain.doFilter(request, response);
+                return;
+            }
 
             // Create authentication object
             UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
@@ -1,22 +1,29 @@
 package com.example.BankSystem.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.List;
 import java.util.stream.Collectors;
 
 @Component
 public class JwtTokenProvider {
 
+    private static final String USER_ID_CLAIM = "uid";
+
     @Value("${app.jwt.secret}")
     private String jwtSecret;
 
@@ -25,9 +32,19 @@ public class JwtTokenProvider {
 
     private Key key;
 
-    public JwtTokenProvider() {
+    // Thread-safe; building one per call costs more than verifying the signature
+    private final JwtParser parser;
+
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    public JwtTokenProvider(VerifiedTokenCache verifiedTokenCache) {
+        this.verifiedTokenCache = verifiedTokenCache;
         // Generate a secure key for HS512 algorithm
         this.key = Keys.secretKeyFor(SignatureAlgorithm.HS512);
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
     }
 
     // Generate token
@@ -42,36 +59,47 @@ public class JwtTokenProvider {
         Date currentDate = new Date();
         Date expireDate = new Date(currentDate.getTime() + jwtExpirationInMs);
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(username)
-                .claim("roles", roles)
+                .claim("roles", roles);
+        if (authentication.getPrincipal() instanceof UserPrincipal principal) {
+            builder.claim(USER_ID_CLAIM, principal.getId());
+        }
+
+        return builder
                 .setIssuedAt(currentDate)
                 .setExpiration(expireDate)
                 .signWith(key)
                 .compact();
     }
 
-    // Get username from token
-    public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.getSubject();
-    }
-
-    // Validate token
-    public boolean validateToken(String token) {
+    // Verify the token once and return its claims, or null if it is invalid or expired.
+    // Repeat tokens are answered from the verified token cache without checking the signature.
+    public Claims parseClaims(String token) {
+        Claims cached = verifiedTokenCache.get(token);
+        if (cached != null) {
+            return cached;
+        }
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            verifiedTokenCache.put(token, claims);
+            return claims;
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return null;
         }
     }
+
+    // Authorities written into the roles claim by generateToken
+    public List<GrantedAuthority> getAuthorities(Claims claims) {
+        String roles = claims.get("roles", String.class);
+        return roles == null || roles.isEmpty()
+                ? List.of()
+                : AuthorityUtils.commaSeparatedStringToAuthorityList(roles);
+    }
+
+    // User id written by generateToken, or null for tokens issued without one
+    public Long getUserId(Claims claims) {
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        return userId == null ? null : userId.longValue();
+    }
 }
@@ -0,0 +1,43 @@
+package com.example.BankSystem.security;
+
+import lombok.Getter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Authenticated user together with its database id. Ownership checks compare ids,
+ * because unlike usernames they are never changed or handed to another user.
+ */
+@Getter
+public class UserPrincipal extends User {
+
+    // Null for tokens issued before the id was added to them
+    private final Long id;
+
+    public UserPrincipal(Long id, String username, String password,
+                         Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, authorities);
+        this.id = id;
+    }
+
+    /**
+     * Id of the authenticated user; null when the caller carries none
+     */
+    public static Long currentId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal
+                ? principal.getId()
+                : null;
+    }
+
+    /**
+     * An independent copy, e.g. to keep credential erasure away from a cached instance
+     */
+    public UserPrincipal copy() {
+        return new UserPrincipal(id, getUsername(), getPassword(), getAuthorities());
+    }
+}
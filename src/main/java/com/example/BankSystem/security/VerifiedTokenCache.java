@@ -0,0 +1,109 @@
+package com.example.BankSystem.security;
+
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Claims of tokens whose signature has already been verified, kept until the token
+ * expires so a client reusing its token skips the HMAC check and JSON parsing.
+ * Entries are keyed by a 64-bit hash of the raw token, but a hit also compares the
+ * full token, so a hash collision can never authenticate a different token.
+ * <p>
+ * The cache is bounded: when it is full new tokens are simply verified every time
+ * until the sweep removes expired entries. Cached claims are shared between requests
+ * and must not be modified.
+ */
+@Component
+@Slf4j
+public class VerifiedTokenCache {
+
+    private final Map<Long, VerifiedToken> tokens = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final LongSupplier clock;
+    private final ToLongFunction<String> hash;
+
+    @Autowired
+    public VerifiedTokenCache(@Value("${app.jwt.verified-cache.max-size:50000}") int maxSize) {
+        this(maxSize, System::currentTimeMillis, VerifiedTokenCache::fnv1a);
+    }
+
+    VerifiedTokenCache(int maxSize, LongSupplier clock, ToLongFunction<String> hash) {
+        this.maxSize = maxSize;
+        this.clock = clock;
+        this.hash = hash;
+    }
+
+    /**
+     * Claims of a previously verified, unexpired token, or null
+     */
+    public Claims get(String token) {
+        long key = hash.applyAsLong(token);
+        VerifiedToken verified = tokens.get(key);
+        if (verified == null) {
+            return null;
+        }
+        if (verified.expiresAt() <= clock.getAsLong()) {
+            tokens.remove(key, verified);
+            return null;
+        }
+        if (!MessageDigest.isEqual(verified.token(), token.getBytes(StandardCharsets.US_ASCII))) {
+            return null;
+        }
+        return verified.claims();
+    }
+
+    /**
+     * Remember the claims of a token that has just passed signature verification.
+     * Tokens without an expiry are never cached.
+     */
+    public void put(String token, Claims claims) {
+        Date expiration = claims.getExpiration();
+        if (expiration == null || tokens.size() >= maxSize) {
+            return;
+        }
+        tokens.put(hash.applyAsLong(token), new VerifiedToken(token.getBytes(StandardCharsets.US_ASCII), claims,
+                expiration.getTime()));
+    }
+
+    public int size() {
+        return tokens.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.verified-cache.sweep-interval-ms:60000}")
+    public void removeExpiredTokens() {
+        long now = clock.getAsLong();
+        int before = tokens.size();
+        tokens.values().removeIf(verified -> verified.expiresAt() <= now);
+        int removed = before - tokens.size();
+        if (removed > 0) {
+            log.debug("Removed {} expired tokens from the verified token cache", removed);
+        }
+    }
+
+    // Helper methods
+
+    // FNV-1a; compact tokens are ASCII, so hashing chars equals hashing their bytes
+    private static long fnv1a(String token) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < token.length(); i++) {
+            hash ^= token.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private record VerifiedToken(byte[] token, Claims claims, long expiresAt) {
+    }
+}
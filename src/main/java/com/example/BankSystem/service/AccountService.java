@@ -1,6 +1,11 @@
 package com.example.BankSystem.service;
 
 import com.example.BankSystem.dto.AccountDto;
+import com.example.BankSystem.dto.AccountFilter;
+import com.example.BankSystem.dto.BalanceAuditDto;
+import com.example.BankSystem.dto.CursorPage;
+import com.example.BankSystem.engine.LedgerEngine;
+import com.example.BankSystem.engine.LedgerResult;
 import com.example.BankSystem.exception.AccountClosedException;
 import com.example.BankSystem.exception.BadRequestException;
 import com.example.BankSystem.exception.ResourceNotFoundException;
@@ -10,15 +15,32 @@ import com.example.BankSystem.enums.AccountStatus;
 import com.example.BankSystem.enums.AccountType;
 import com.example.BankSystem.repository.AccountRepository;
 import com.example.BankSystem.repository.UserRepository;
+import com.example.BankSystem.security.AccountOwnershipIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.Random;
-import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -26,19 +48,96 @@ public class AccountService {
 
     private final AccountRepository accountRepository;
     private final UserRepository userRepository;
+    private final BalanceStripingService balanceStripingService;
+    private final LedgerService ledgerService;
+    private final Optional<LedgerEngine> ledgerEngine;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final AccountOwnershipIndex ownershipIndex;
+
+    @Value("${app.admin.list.max-page-size:500}")
+    private int maxPageSize;
+
+    @Value("${app.admin.export.batch-size:500}")
+    private int exportBatchSize;
 
     @Autowired
-    public AccountService(AccountRepository accountRepository, UserRepository userRepository) {
+    public AccountService(AccountRepository accountRepository, UserRepository userRepository,
+                          BalanceStripingService balanceStripingService, LedgerService ledgerService,
+                          Optional<LedgerEngine> ledgerEngine, EntityManager entityManager,
+                          ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                          AccountOwnershipIndex ownershipIndex) {
         this.accountRepository = accountRepository;
         this.userRepository = userRepository;
+        this.balanceStripingService = balanceStripingService;
+        this.ledgerService = ledgerService;
+        this.ledgerEngine = ledgerEngine;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.ownershipIndex = ownershipIndex;
     }
 
+    /**
+     * One page of accounts in id order matching the filter. Pass the returned nextCursor
+     * as "after" to continue. No total count is computed.
+     */
     @Transactional(readOnly = true)
-    public List<AccountDto> getAllAccounts() {
-        log.info("Fetching all accounts");
-        return accountRepository.findAll().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    public CursorPage<AccountDto> getAccounts(AccountFilter filter, String after, int limit) {
+        log.info("Fetching accounts matching {} after {}", filter, after);
+
+        if (limit < 1 || limit > maxPageSize) {
+            throw new BadRequestException("Limit must be between 1 and " + maxPageSize);
+        }
+
+        // One extra row tells whether another page exists
+        List<AccountDto> rows = findAccounts(filter, parseCursor(after), limit + 1);
+        boolean hasMore = rows.size() > limit;
+        List<AccountDto> items = hasMore ? rows.subList(0, limit) : rows;
+
+        return CursorPage.<AccountDto>builder()
+                .items(items)
+                .limit(limit)
+                .nextCursor(hasMore ? String.valueOf(items.get(items.size() - 1).getId()) : null)
+                .build();
+    }
+
+    /**
+     * Stream every account matching the filter as NDJSON, reading keyset batches in short
+     * read-only transactions
+     */
+    public StreamingResponseBody exportAccounts(AccountFilter filter) {
+        log.info("Exporting accounts matching {}", filter);
+        // Reject a bad filter before the response starts
+        if (filter.getStatus() != null) {
+            parseStatus(filter.getStatus());
+        }
+        if (filter.getAccountType() != null) {
+            parseAccountType(filter.getAccountType());
+        }
+
+        return outputStream -> {
+            long exported = 0;
+            try (SequenceWriter writer = objectMapper.writerFor(AccountDto.class)
+                    .withRootValueSeparator("\n")
+                    .writeValues(outputStream)) {
+                long afterId = 0;
+                List<AccountDto> batch;
+                do {
+                    long from = afterId;
+                    batch = readOnlyTransactionTemplate.execute(status -> findAccounts(filter, from, exportBatchSize));
+                    writer.writeAll(batch);
+                    writer.flush();
+                    exported += batch.size();
+                    if (!batch.isEmpty()) {
+                        afterId = batch.get(batch.size() - 1).getId();
+                    }
+                } while (batch.size() == exportBatchSize);
+            }
+            log.info("Exported {} accounts", exported);
+        };
     }
 
     @Transactional(readOnly = true)
@@ -60,12 +159,13 @@ public class AccountService {
     @Transactional(readOnly = true)
     public List<AccountDto> getAccountsByUserId(Long userId) {
         log.info("Fetching accounts for user with ID: {}", userId);
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User", "id", userId);
+        }
 
-        return accountRepository.findByUser(user).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        List<AccountDto> accounts = accountRepository.findDtosByUserId(userId);
+        balanceStripingService.addSlotBalances(accounts);
+        return accounts;
     }
 
     @Transactional
@@ -98,6 +198,10 @@ public class AccountService {
                 .build();
 
         Account savedAccount = accountRepository.save(account);
+        ownershipIndex.accountCreated(savedAccount.getId(), savedAccount.getAccountNumber(), user.getId());
+        if (savedAccount.getBalance().signum() > 0) {
+            ledgerService.record(LedgerService.Movement.opening(savedAccount.getId(), savedAccount.getBalance()));
+        }
         log.info("Account created successfully with account number: {}", savedAccount.getAccountNumber());
         return convertToDto(savedAccount);
     }
@@ -130,6 +234,7 @@ public class AccountService {
         }
 
         Account updatedAccount = accountRepository.save(existingAccount);
+        refreshLedgerEngineAfterCommit(updatedAccount.getAccountNumber());
         log.info("Account updated successfully");
         return convertToDto(updatedAccount);
     }
@@ -143,9 +248,43 @@ public class AccountService {
 
         account.setStatus(AccountStatus.CLOSED);
         accountRepository.save(account);
+        refreshLedgerEngineAfterCommit(account.getAccountNumber());
         log.info("Account closed successfully");
     }
 
+    @Transactional
+    public AccountDto configureBalanceStriping(Long id, int slots) {
+        log.info("Configuring {} balance slots for account with ID: {}", slots, id);
+
+        Account account = accountRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Account", "id", id));
+
+        balanceStripingService.configure(account, slots);
+        Account updatedAccount = accountRepository.save(account);
+
+        return convertToDto(updatedAccount, balanceStripingService.currentBalance(id));
+    }
+
+    @Transactional
+    public BalanceAuditDto auditBalance(Long id) {
+        log.info("Auditing balance of account with ID: {}", id);
+        Account account = accountRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Account", "id", id));
+        return ledgerService.audit(account);
+    }
+
+    @Transactional
+    public BalanceAuditDto rebuildBalance(Long id) {
+        log.info("Rebuilding balance of account with ID: {} from the ledger", id);
+        // The engine holds balances in memory and journals them later, so the ledger trails it
+        if (ledgerEngine.isPresent()) {
+            throw new BadRequestException("Balances cannot be rebuilt while the ledger engine is enabled");
+        }
+        Account account = accountRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Account", "id", id));
+        return ledgerService.rebuildBalance(account);
+    }
+
     @Transactional
     public AccountDto deposit(String accountNumber, BigDecimal amount) {
         log.info("Depositing {} to account: {}", amount, accountNumber);
@@ -154,18 +293,26 @@ public class AccountService {
             throw new BadRequestException("Deposit amount must be positive");
         }
 
+        if (ledgerEngine.isPresent()) {
+            LedgerResult result = ledgerEngine.get().deposit(accountNumber, amount);
+            // A pending result carries no balance: the deposit may still be applied
+            log.info("Deposit {} by ledger engine. New balance: {}",
+                    result.pending() ? "still being applied" : "applied", result.balance());
+            return convertToDto(accountNumber, result);
+        }
+
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new ResourceNotFoundException("Account", "accountNumber", accountNumber));
 
-        if (account.getStatus() != AccountStatus.ACTIVE) {
+        // The loaded entity predates the update; the new balance comes back from it
+        BigDecimal newBalance = balanceStripingService.creditAndGetBalance(account, amount);
+        if (newBalance == null) {
             throw new AccountClosedException("Cannot deposit to a non-active account");
         }
+        ledgerService.record(LedgerService.Movement.deposit(account.getId(), amount));
+        log.info("Deposit successful. New balance: {}", newBalance);
 
-        account.setBalance(account.getBalance().add(amount));
-        Account updatedAccount = accountRepository.save(account);
-        log.info("Deposit successful. New balance: {}", updatedAccount.getBalance());
-
-        return convertToDto(updatedAccount);
+        return convertToDto(account, newBalance);
     }
 
     @Transactional
@@ -176,25 +323,102 @@ public class AccountService {
             throw new BadRequestException("Withdrawal amount must be positive");
         }
 
+        if (ledgerEngine.isPresent()) {
+            LedgerResult result = ledgerEngine.get().withdraw(accountNumber, amount);
+            log.info("Withdrawal {} by ledger engine. New balance: {}",
+                    result.pending() ? "still being applied" : "applied", result.balance());
+            return convertToDto(accountNumber, result);
+        }
+
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new ResourceNotFoundException("Account", "accountNumber", accountNumber));
 
-        if (account.getStatus() != AccountStatus.ACTIVE) {
-            throw new AccountClosedException("Cannot withdraw from a non-active account");
+        BigDecimal newBalance = balanceStripingService.debitAndGetBalance(account, amount);
+        if (newBalance == null) {
+            // Work out why the conditional update did not match
+            if (account.getStatus() != AccountStatus.ACTIVE) {
+                throw new AccountClosedException("Cannot withdraw from a non-active account");
+            }
+            throw new BadRequestException("Insufficient funds");
         }
+        ledgerService.record(LedgerService.Movement.withdrawal(account.getId(), amount));
+        log.info("Withdrawal successful. New balance: {}", newBalance);
 
-        if (account.getBalance().compareTo(amount) < 0) {
-            throw new BadRequestException("Insufficient funds");
+        return convertToDto(account, newBalance);
+    }
+
+    // Helper methods
+    private List<AccountDto> findAccounts(AccountFilter filter, long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AccountDto> query = cb.createQuery(AccountDto.class);
+        Root<Account> account = query.from(Account.class);
+        Join<Account, User> user = account.join("user");
+        Path<Long> id = account.get("id");
+
+        // Only the filters actually given become predicates, so each can use its own index
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.greaterThan(id, afterId));
+        if (filter.getStatus() != null) {
+            predicates.add(cb.equal(account.get("status"), parseStatus(filter.getStatus())));
+        }
+        if (filter.getAccountType() != null) {
+            predicates.add(cb.equal(account.get("accountType"), parseAccountType(filter.getAccountType())));
+        }
+        if (filter.getCreatedFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(account.get("createdAt"), filter.getCreatedFrom()));
+        }
+        if (filter.getCreatedTo() != null) {
+            predicates.add(cb.lessThan(account.get("createdAt"), filter.getCreatedTo()));
         }
 
-        account.setBalance(account.getBalance().subtract(amount));
-        Account updatedAccount = accountRepository.save(account);
-        log.info("Withdrawal successful. New balance: {}", updatedAccount.getBalance());
+        query.select(cb.construct(AccountDto.class,
+                        id,
+                        account.get("accountNumber"),
+                        user.get("id"),
+                        user.get("username"),
+                        account.get("balance"),
+                        account.get("balanceSlots"),
+                        account.get("accountType"),
+                        account.get("status"),
+                        account.get("createdAt"),
+                        account.get("updatedAt")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.asc(id));
+
+        List<AccountDto> accounts = entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+        balanceStripingService.addSlotBalances(accounts);
+        return accounts;
+    }
 
-        return convertToDto(updatedAccount);
+    private AccountStatus parseStatus(String status) {
+        try {
+            return AccountStatus.valueOf(status);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid account status: " + status);
+        }
+    }
+
+    private AccountType parseAccountType(String accountType) {
+        try {
+            return AccountType.valueOf(accountType);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid account type: " + accountType);
+        }
+    }
+
+    private long parseCursor(String after) {
+        if (after == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(after);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid cursor: " + after);
+        }
     }
 
-    // Helper methods
     private String generateAccountNumber() {
         Random random = new Random();
         StringBuilder sb = new StringBuilder();
@@ -204,13 +428,41 @@ public class AccountService {
         return sb.toString();
     }
 
+    // The change is already committed here, so a failure is logged rather than reported
+    private void refreshLedgerEngineAfterCommit(String accountNumber) {
+        ledgerEngine.ifPresent(engine -> TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        try {
+                            engine.markStale(accountNumber);
+                        } catch (RuntimeException e) {
+                            log.error("Ledger engine was not told that account {} changed: {}",
+                                    accountNumber, e.getMessage(), e);
+                        }
+                    }
+                }));
+    }
+
+    // The stored balance trails the engine until the journal catches up, so report the engine's
+    private AccountDto convertToDto(String accountNumber, LedgerResult result) {
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new ResourceNotFoundException("Account", "accountNumber", accountNumber));
+        return convertToDto(account, result.balance());
+    }
+
     private AccountDto convertToDto(Account account) {
+        return convertToDto(account, balanceStripingService.totalBalance(account));
+    }
+
+    private AccountDto convertToDto(Account account, BigDecimal balance) {
         return AccountDto.builder()
                 .id(account.getId())
                 .accountNumber(account.getAccountNumber())
                 .userId(account.getUser().getId())
                 .username(account.getUser().getUsername())
-                .balance(account.getBalance())
+                .balance(balance)
+                .balanceSlots(account.getBalanceSlots())
                 .accountType(account.getAccountType().toString())
                 .status(account.getStatus().toString())
                 .createdAt(account.getCreatedAt())
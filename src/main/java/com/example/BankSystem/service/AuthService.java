@@ -5,6 +5,7 @@ import com.example.BankSystem.dto.LoginRequest;
 import com.example.BankSystem.dto.SignupRequest;
 import com.example.BankSystem.dto.UserDto;
 import com.example.BankSystem.exception.BadRequestException;
+import com.example.BankSystem.exception.TooManyRequestsException;
 import com.example.BankSystem.exception.UserAlreadyExistsException;
 import com.example.BankSystem.model.User;
 import com.example.BankSystem.repository.UserRepository;
@@ -61,6 +62,9 @@ public class AuthService {
 
             log.info("User authenticated successfully: {}", loginRequest.getUsername());
             return new JwtAuthResponse(token, user.getId(), user.getUsername());
+        } catch (TooManyRequestsException e) {
+            // Overload, not bad credentials: the client should retry
+            throw e;
         } catch (Exception e) {
             log.error("Authentication failed for user {}: {}", loginRequest.getUsername(), e.getMessage());
             throw new BadRequestException("Invalid username or password");
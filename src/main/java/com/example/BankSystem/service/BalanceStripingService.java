@@ -0,0 +1,239 @@
+package com.example.BankSystem.service;
+
+import com.example.BankSystem.dto.AccountDto;
+import com.example.BankSystem.exception.BadRequestException;
+import com.example.BankSystem.model.Account;
+import com.example.BankSystem.repository.AccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Spreads the balance of hot accounts over several rows so that concurrent credits
+ * stop queueing on the single accounts row. A striped account keeps its base balance
+ * in accounts.balance and the rest in account_balance_slots; credits land on a random
+ * slot without touching the accounts row, and a debit the base balance cannot cover
+ * folds the slots back into it first.
+ * <p>
+ * Folding takes the accounts row before its slots. Two transfers that each fold a
+ * striped account they are also crediting can still lock slots in opposite order;
+ * PostgreSQL aborts one of them as a deadlock.
+ */
+@Service
+@Slf4j
+public class BalanceStripingService {
+
+    private static final String CREDIT_RETURNING_BALANCE =
+            "UPDATE accounts SET balance = balance + ?, updated_at = CURRENT_TIMESTAMP " +
+                    "WHERE account_number = ? AND status = 'ACTIVE' RETURNING balance, balance_slots";
+
+    private static final String DEBIT_RETURNING_BALANCE =
+            "UPDATE accounts SET balance = balance - ?, updated_at = CURRENT_TIMESTAMP " +
+                    "WHERE account_number = ? AND status = 'ACTIVE' AND balance >= ? RETURNING balance, balance_slots";
+
+    // Only slots locked by the CTE are zeroed, and each returns the balance it held under
+    // that lock, so a credit racing the fold either lands before it and is counted or stays
+    // in its slot. Each row's pre-update balance travels through the join on (account_id, slot).
+    private static final String ZERO_SLOTS_RETURNING_BALANCE =
+            "WITH folded AS (SELECT account_id, slot, balance FROM account_balance_slots " +
+                    "WHERE account_id = ? AND balance <> 0 FOR UPDATE) " +
+                    "UPDATE account_balance_slots s SET balance = 0 FROM folded f " +
+                    "WHERE s.account_id = f.account_id AND s.slot = f.slot RETURNING f.balance";
+
+    private static final RowMapper<BalanceRow> BALANCE_ROW_MAPPER = (rs, rowNum) ->
+            new BalanceRow(rs.getBigDecimal("balance"), rs.getInt("balance_slots"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AccountRepository accountRepository;
+    private final int maxSlots;
+
+    @Autowired
+    public BalanceStripingService(
+            JdbcTemplate jdbcTemplate,
+            AccountRepository accountRepository,
+            @Value("${app.account.striping.max-slots:64}") int maxSlots) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.accountRepository = accountRepository;
+        this.maxSlots = maxSlots;
+    }
+
+    public boolean isStriped(Account account) {
+        return account.getBalanceSlots() != null && account.getBalanceSlots() > 0;
+    }
+
+    /**
+     * Add to an active account. Returns false if the account is missing or not active.
+     */
+    public boolean credit(Account account, BigDecimal amount) {
+        if (isStriped(account)) {
+            int slot = ThreadLocalRandom.current().nextInt(account.getBalanceSlots());
+            // Joining accounts only reads the status; it does not lock the hot row
+            int updated = jdbcTemplate.update(
+                    "UPDATE account_balance_slots s SET balance = s.balance + ? FROM accounts a " +
+                            "WHERE a.id = s.account_id AND s.account_id = ? AND s.slot = ? AND a.status = 'ACTIVE'",
+                    amount, account.getId(), slot);
+            if (updated > 0) {
+                return true;
+            }
+            // Striping was switched off concurrently, or the account is not active
+        }
+        return accountRepository.creditIfActive(account.getAccountNumber(), amount) > 0;
+    }
+
+    /**
+     * Subtract from an active account holding enough funds across its base balance and slots.
+     * Returns false if the account is missing, not active or short of funds.
+     */
+    public boolean debit(Account account, BigDecimal amount) {
+        if (accountRepository.debitIfSufficient(account.getAccountNumber(), amount) > 0) {
+            return true;
+        }
+        if (!isStriped(account) || foldSlots(account.getId()).signum() == 0) {
+            return false;
+        }
+        return accountRepository.debitIfSufficient(account.getAccountNumber(), amount) > 0;
+    }
+
+    /**
+     * Credit as {@link #credit} and return the new total balance, or null if the account
+     * is missing or not active. Unstriped accounts read it from the UPDATE itself.
+     */
+    public BigDecimal creditAndGetBalance(Account account, BigDecimal amount) {
+        if (isStriped(account)) {
+            return credit(account, amount) ? currentBalance(account.getId()) : null;
+        }
+        return totalAfterUpdate(account, jdbcTemplate.query(CREDIT_RETURNING_BALANCE, BALANCE_ROW_MAPPER,
+                amount, account.getAccountNumber()));
+    }
+
+    /**
+     * Debit as {@link #debit} and return the new total balance, or null if the account
+     * is missing, not active or short of funds
+     */
+    public BigDecimal debitAndGetBalance(Account account, BigDecimal amount) {
+        List<BalanceRow> rows = jdbcTemplate.query(DEBIT_RETURNING_BALANCE, BALANCE_ROW_MAPPER,
+                amount, account.getAccountNumber(), amount);
+        if (rows.isEmpty() && isStriped(account) && foldSlots(account.getId()).signum() != 0) {
+            rows = jdbcTemplate.query(DEBIT_RETURNING_BALANCE, BALANCE_ROW_MAPPER,
+                    amount, account.getAccountNumber(), amount);
+        }
+        return totalAfterUpdate(account, rows);
+    }
+
+    /**
+     * Move every slot balance into accounts.balance, locking the account row first.
+     * Returns the amount moved.
+     */
+    public BigDecimal foldSlots(Long accountId) {
+        lockAccountRow(accountId);
+        return addToBase(accountId, jdbcTemplate.queryForList(ZERO_SLOTS_RETURNING_BALANCE, BigDecimal.class, accountId));
+    }
+
+    /**
+     * Base balance plus slots, as seen by a plain read
+     */
+    public BigDecimal totalBalance(Account account) {
+        if (!isStriped(account)) {
+            return account.getBalance();
+        }
+        return account.getBalance().add(sumSlots(account.getId()));
+    }
+
+    /**
+     * Add slot balances to projected accounts whose balance only covers accounts.balance.
+     * Costs one query for the whole list, and none if no account is striped.
+     */
+    public void addSlotBalances(List<AccountDto> accounts) {
+        Map<Long, AccountDto> striped = accounts.stream()
+                .filter(account -> account.getBalanceSlots() != null && account.getBalanceSlots() > 0)
+                .collect(Collectors.toMap(AccountDto::getId, Function.identity()));
+        if (striped.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.query(
+                "SELECT account_id, SUM(balance) AS balance FROM account_balance_slots " +
+                        "WHERE account_id = ANY (?) GROUP BY account_id",
+                rs -> {
+                    AccountDto account = striped.get(rs.getLong("account_id"));
+                    account.setBalance(account.getBalance().add(rs.getBigDecimal("balance")));
+                },
+                (Object) striped.keySet().toArray(new Long[0]));
+    }
+
+    /**
+     * Re-read the full balance from the database, bypassing any loaded entity
+     */
+    public BigDecimal currentBalance(Long accountId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT a.balance + COALESCE((SELECT SUM(s.balance) FROM account_balance_slots s " +
+                        "WHERE s.account_id = a.id), 0) FROM accounts a WHERE a.id = ?",
+                BigDecimal.class, accountId);
+    }
+
+    /**
+     * Switch an account to the given number of slots; zero turns striping off.
+     * Existing slots are deleted and their balances added to the base balance in one step.
+     */
+    public void configure(Account account, int slots) {
+        if (slots < 0 || slots > maxSlots) {
+            throw new BadRequestException("Balance slots must be between 0 and " + maxSlots);
+        }
+
+        // DELETE ... RETURNING hands back exactly what it removed, including credits it waited on
+        lockAccountRow(account.getId());
+        addToBase(account.getId(), jdbcTemplate.queryForList(
+                "DELETE FROM account_balance_slots WHERE account_id = ? RETURNING balance",
+                BigDecimal.class, account.getId()));
+        if (slots > 0) {
+            jdbcTemplate.update(
+                    "INSERT INTO account_balance_slots (account_id, slot, balance) " +
+                            "SELECT ?, slot, 0 FROM generate_series(0, ? - 1) AS slot",
+                    account.getId(), slots);
+        }
+        account.setBalanceSlots(slots);
+        log.info("Account {} now uses {} balance slots", account.getAccountNumber(), slots);
+    }
+
+    // Helper methods
+    private void lockAccountRow(Long accountId) {
+        jdbcTemplate.queryForList("SELECT id FROM accounts WHERE id = ? FOR UPDATE", Long.class, accountId);
+    }
+
+    private BigDecimal addToBase(Long accountId, List<BigDecimal> slotBalances) {
+        BigDecimal total = slotBalances.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (total.signum() != 0) {
+            jdbcTemplate.update("UPDATE accounts SET balance = balance + ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?",
+                    total, accountId);
+        }
+        return total;
+    }
+
+    // Slots only need summing if the account is striped by the time of the update
+    private BigDecimal totalAfterUpdate(Account account, List<BalanceRow> rows) {
+        if (rows.isEmpty()) {
+            return null;
+        }
+        BalanceRow row = rows.get(0);
+        return row.balanceSlots() > 0 ? currentBalance(account.getId()) : row.balance();
+    }
+
+    private BigDecimal sumSlots(Long accountId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(balance), 0) FROM account_balance_slots WHERE account_id = ?",
+                BigDecimal.class, accountId);
+    }
+
+    private record BalanceRow(BigDecimal balance, int balanceSlots) {
+    }
+}
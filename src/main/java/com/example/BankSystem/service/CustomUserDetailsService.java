@@ -1,13 +1,16 @@
 package com.example.BankSystem.service;
 
 
+import com.example.BankSystem.cache.UserDetailsCache;
 import com.example.BankSystem.model.Role;
 import com.example.BankSystem.model.User;
 import com.example.BankSystem.repository.UserRepository;
+import com.example.BankSystem.security.UserPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -18,26 +21,53 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
 
     @Autowired
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, UserDetailsCache userDetailsCache) {
         this.userRepository = userRepository;
+        this.userDetailsCache = userDetailsCache;
     }
 
+    // Not @Transactional: a cache hit must not open a transaction or borrow a connection,
+    // and roles are fetched eagerly with the user
     @Override
-    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        UserDetails cached = userDetailsCache.get(username);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = userDetailsCache.generation();
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
 
-        return new org.springframework.security.core.userdetails.User(
+        UserDetails userDetails = new UserPrincipal(
+                user.getId(),
                 user.getUsername(),
                 user.getPassword(),
                 mapRolesToAuthorities(user.getRoles())
         );
+        userDetailsCache.put(username, userDetails, generation);
+        return userDetails;
+    }
+
+    /**
+     * Store a password rehashed at login because app.security.bcrypt.strength changed
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + userDetails.getUsername()));
+        user.setPassword(newPassword);
+        userRepository.save(user);
+        userDetailsCache.invalidate(user.getUsername());
+
+        return new UserPrincipal(user.getId(), user.getUsername(), newPassword, userDetails.getAuthorities());
     }
 
     private Collection<? extends GrantedAuthority> mapRolesToAuthorities(Set<Role> roles) {
@@ -0,0 +1,206 @@
+package com.example.BankSystem.service;
+
+import com.example.BankSystem.cache.BoundedLruCache;
+import com.example.BankSystem.dto.TransferRequest;
+import com.example.BankSystem.dto.TransferResponse;
+import com.example.BankSystem.exception.BadRequestException;
+import com.example.BankSystem.exception.InvalidTransactionException;
+import com.example.BankSystem.security.UserPrincipal;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Remembers the response of every transfer submitted with an Idempotency-Key,
+ * so a retried request is answered with the original result instead of moving
+ * the money again. Keys are stored in the idempotency_keys table in the same
+ * database transaction as the transfer, with a bounded LRU in front of it.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final BoundedLruCache<String, CachedResponse> cache;
+    private final Duration ttl;
+
+    @Autowired
+    public IdempotencyService(
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            @Value("${app.idempotency.cache-size:10000}") int cacheSize,
+            @Value("${app.idempotency.ttl:PT24H}") Duration ttl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.cache = new BoundedLruCache<>(cacheSize);
+        this.ttl = ttl;
+    }
+
+    /**
+     * Scope a client supplied key to the current user's id so two users can never collide,
+     * not even after one of them is renamed and the old name is taken again
+     */
+    public String scopeKey(String idempotencyKey) {
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        Long userId = UserPrincipal.currentId();
+        if (userId == null) {
+            throw new BadRequestException("Idempotency-Key needs a token that carries the user id; please log in again");
+        }
+        return userId + ":" + idempotencyKey;
+    }
+
+    /**
+     * Answer a replayed key from memory, without a database round trip
+     */
+    public Optional<TransferResponse> findCached(String scopedKey, TransferRequest request) {
+        CachedResponse cached = cache.get(scopedKey);
+        if (cached == null) {
+            return Optional.empty();
+        }
+        if (cached.expiresAt().isBefore(LocalDateTime.now())) {
+            cache.remove(scopedKey);
+            return Optional.empty();
+        }
+        checkSameRequest(cached.requestHash(), request);
+        return Optional.of(cached.response());
+    }
+
+    /**
+     * Claim the key inside the current transaction. Returns the stored response if the
+     * key was already used; an empty result means the caller owns the key and must run
+     * the transfer and then call {@link #complete}.
+     * A concurrent request with the same key blocks on the insert until the first one
+     * commits or rolls back.
+     */
+    public Optional<TransferResponse> reserve(String scopedKey, TransferRequest request) {
+        String requestHash = hash(request);
+        LocalDateTime now = LocalDateTime.now();
+
+        int claimed = jdbcTemplate.update(
+                "INSERT INTO idempotency_keys (idempotency_key, request_hash, created_at, expires_at) " +
+                        "VALUES (?, ?, ?, ?) " +
+                        "ON CONFLICT (idempotency_key) DO UPDATE SET request_hash = EXCLUDED.request_hash, " +
+                        "response = NULL, created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at " +
+                        "WHERE idempotency_keys.expires_at < EXCLUDED.created_at",
+                scopedKey, requestHash, Timestamp.valueOf(now), Timestamp.valueOf(now.plus(ttl)));
+
+        if (claimed == 1) {
+            return Optional.empty();
+        }
+
+        List<StoredResponse> stored = jdbcTemplate.query(
+                "SELECT request_hash, response, expires_at FROM idempotency_keys WHERE idempotency_key = ?",
+                (rs, rowNum) -> new StoredResponse(
+                        rs.getString("request_hash"),
+                        rs.getString("response"),
+                        rs.getTimestamp("expires_at").toLocalDateTime()),
+                scopedKey);
+
+        if (stored.isEmpty() || stored.get(0).response() == null) {
+            throw new InvalidTransactionException("A request with this Idempotency-Key is still being processed");
+        }
+
+        StoredResponse previous = stored.get(0);
+        checkSameRequest(previous.requestHash(), request);
+
+        TransferResponse response = deserialize(previous.response());
+        cache.put(scopedKey, new CachedResponse(previous.requestHash(), response, previous.expiresAt()));
+        log.info("Replaying stored response for idempotency key {}", scopedKey);
+        return Optional.of(response);
+    }
+
+    /**
+     * Store the response for a key claimed by {@link #reserve}. The in-memory cache is
+     * only populated once the surrounding transaction has committed.
+     */
+    public void complete(String scopedKey, TransferRequest request, TransferResponse response) {
+        jdbcTemplate.update("UPDATE idempotency_keys SET response = ? WHERE idempotency_key = ?",
+                serialize(response), scopedKey);
+
+        CachedResponse cached = new CachedResponse(hash(request), response, LocalDateTime.now().plus(ttl));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.put(scopedKey, cached);
+                }
+            });
+        } else {
+            cache.put(scopedKey, cached);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.sweep-interval-ms:300000}")
+    public void removeExpiredKeys() {
+        LocalDateTime now = LocalDateTime.now();
+        int evicted = cache.removeIf(cached -> cached.expiresAt().isBefore(now));
+        int deleted = jdbcTemplate.update("DELETE FROM idempotency_keys WHERE expires_at < ?", Timestamp.valueOf(now));
+        if (deleted > 0 || evicted > 0) {
+            log.info("Removed {} expired idempotency keys ({} cached entries)", deleted, evicted);
+        }
+    }
+
+    // Helper methods
+    private void checkSameRequest(String storedHash, TransferRequest request) {
+        if (!storedHash.equals(hash(request))) {
+            throw new BadRequestException("Idempotency-Key was already used for a different request");
+        }
+    }
+
+    private String hash(TransferRequest request) {
+        String canonical = request.getSourceAccountNumber() + "|" +
+                request.getDestinationAccountNumber() + "|" +
+                request.getAmount().stripTrailingZeros().toPlainString() + "|" +
+                (request.getDescription() != null ? request.getDescription() : "");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private String serialize(TransferResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize transfer response", e);
+        }
+    }
+
+    private TransferResponse deserialize(String json) {
+        try {
+            return objectMapper.readValue(json, TransferResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not deserialize stored transfer response", e);
+        }
+    }
+
+    private record CachedResponse(String requestHash, TransferResponse response, LocalDateTime expiresAt) {
+    }
+
+    private record StoredResponse(String requestHash, String response, LocalDateTime expiresAt) {
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.BankSystem.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Watermarks of the jobs that tail ledger_entries (snapshots, statements, rollups), one
+ * ledger_consumers row each. The row is locked for as long as a chunk is being folded,
+ * so two instances never fold the same entries, and a rebuild that locks it knows
+ * exactly which entries have been folded.
+ * <p>
+ * Entry ids are taken when a row is inserted, not when it commits, so a long transaction
+ * can commit an entry below ids that are already visible. Only entries below a settled
+ * horizon are handed out: the highest id issued at some moment, once every transaction
+ * that was running at that moment has ended. {@link LedgerService#record} makes sure a
+ * writer has its transaction id before it takes entry ids, and the id sequence hands out
+ * one value at a time (no CACHE), so no transaction can take an id at or below a horizon
+ * after the horizon was set.
+ */
+@Service
+public class LedgerConsumerService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public LedgerConsumerService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Folds the ledger entries in (afterId, upToId] into a consumer's own tables
+     */
+    @FunctionalInterface
+    public interface ChunkFolder {
+        int fold(long afterId, long upToId);
+    }
+
+    /**
+     * Hand the next chunk of settled entries after the consumer's watermark to the folder and
+     * advance the watermark past it, all in the caller's transaction. Returns what the folder
+     * returned, or 0 if nothing has settled or another instance holds the consumer.
+     * A transaction that stays open keeps later entries from settling until it ends.
+     */
+    public int foldNextChunk(String consumer, int chunkSize, ChunkFolder folder) {
+        List<Long> locked = jdbcTemplate.queryForList(
+                "SELECT last_entry_id FROM ledger_consumers WHERE name = ? FOR UPDATE SKIP LOCKED",
+                Long.class, consumer);
+        if (locked.isEmpty()) {
+            return 0;
+        }
+
+        long watermark = locked.get(0);
+        long settled = advanceHorizon(consumer);
+        Long upTo = jdbcTemplate.queryForObject(
+                "SELECT MAX(id) FROM (SELECT id FROM ledger_entries WHERE id > ? AND id <= ? " +
+                        "ORDER BY id LIMIT ?) c",
+                Long.class, watermark, settled, chunkSize);
+        if (upTo == null) {
+            return 0;
+        }
+
+        int folded = folder.fold(watermark, upTo);
+        jdbcTemplate.update("UPDATE ledger_consumers SET last_entry_id = ? WHERE name = ?", upTo, consumer);
+        return folded;
+    }
+
+    /**
+     * Lock the consumer until the caller's transaction ends and return its watermark.
+     * Nothing is folded for that consumer meanwhile.
+     */
+    public long lockWatermark(String consumer) {
+        return jdbcTemplate.queryForObject(
+                "SELECT last_entry_id FROM ledger_consumers WHERE name = ? FOR UPDATE", Long.class, consumer);
+    }
+
+    // Helper methods
+    // Called with the consumer row locked; returns the id at or below which every entry is final
+    private long advanceHorizon(String consumer) {
+        Long highestIssued = jdbcTemplate.queryForObject(
+                "SELECT CASE WHEN is_called THEN last_value ELSE 0 END FROM ledger_entries_id_seq", Long.class);
+        // A statement of its own, so the snapshot is taken after the id was read
+        jdbcTemplate.update(
+                "UPDATE ledger_consumers SET horizon_entry_id = ?, " +
+                        "horizon_xid = pg_snapshot_xmax(pg_current_snapshot()) " +
+                        "WHERE name = ? AND horizon_xid IS NULL",
+                highestIssued, consumer);
+
+        // Settled once no transaction older than the horizon is running, other than this one
+        jdbcTemplate.update(
+                "UPDATE ledger_consumers SET settled_entry_id = horizon_entry_id, " +
+                        "horizon_entry_id = NULL, horizon_xid = NULL " +
+                        "WHERE name = ? AND horizon_xid IS NOT NULL AND NOT EXISTS (" +
+                        "    SELECT 1 FROM pg_snapshot_xip(pg_current_snapshot()) AS running(xid) " +
+                        "    WHERE running.xid < horizon_xid AND running.xid <> pg_current_xact_id())",
+                consumer);
+
+        return jdbcTemplate.queryForObject(
+                "SELECT settled_entry_id FROM ledger_consumers WHERE name = ?", Long.class, consumer);
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.BankSystem.service;
+
+import com.example.BankSystem.dto.BalanceAuditDto;
+import com.example.BankSystem.enums.LedgerDirection;
+import com.example.BankSystem.enums.LedgerEntryType;
+import com.example.BankSystem.model.Account;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Record of every balance movement. Each movement appends immutable rows to ledger_entries
+ * in the same database transaction as the balance change: a DEBIT and a CREDIT for a
+ * transfer, a single CREDIT for a deposit or opening balance and a single DEBIT for a
+ * withdrawal. A scheduled job folds new entries into per-account snapshots.
+ * The balance of an account can then be rebuilt from its latest snapshot plus the
+ * entries written after it, independently of accounts.balance.
+ * <p>
+ * Snapshots only cover entries whose writers have all ended (see {@link LedgerConsumerService}),
+ * so no entry can commit below a snapshot's watermark.
+ */
+@Service
+@Slf4j
+public class LedgerService {
+
+    private static final String SNAPSHOT_CONSUMER = "balance_snapshots";
+
+    static final String SIGNED_AMOUNT = "CASE WHEN direction = 'CREDIT' THEN amount ELSE -amount END";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BalanceStripingService balanceStripingService;
+    private final LedgerConsumerService ledgerConsumerService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public LedgerService(
+            JdbcTemplate jdbcTemplate,
+            BalanceStripingService balanceStripingService,
+            LedgerConsumerService ledgerConsumerService,
+            PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.balanceStripingService = balanceStripingService;
+        this.ledgerConsumerService = ledgerConsumerService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * A balance movement. Deposits and opening balances have no debit side,
+     * withdrawals no credit side.
+     */
+    public record Movement(String transactionId, LedgerEntryType type, Long debitAccountId,
+                           Long creditAccountId, BigDecimal amount) {
+
+        public static Movement transfer(String transactionId, Long sourceAccountId, Long destinationAccountId,
+                                        BigDecimal amount) {
+            return new Movement(transactionId, LedgerEntryType.TRANSFER, sourceAccountId, destinationAccountId, amount);
+        }
+
+        public static Movement deposit(Long accountId, BigDecimal amount) {
+            return new Movement(null, LedgerEntryType.DEPOSIT, null, accountId, amount);
+        }
+
+        public static Movement withdrawal(Long accountId, BigDecimal amount) {
+            return new Movement(null, LedgerEntryType.WITHDRAWAL, accountId, null, amount);
+        }
+
+        public static Movement opening(Long accountId, BigDecimal amount) {
+            return new Movement(null, LedgerEntryType.OPENING, null, accountId, amount);
+        }
+    }
+
+    public void record(Movement movement) {
+        record(List.of(movement));
+    }
+
+    /**
+     * Append the entries of every movement as a single JDBC batch
+     */
+    public void record(List<Movement> movements) {
+        List<Object[]> rows = new ArrayList<>(movements.size() * 2);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (Movement movement : movements) {
+            if (movement.debitAccountId() != null) {
+                rows.add(new Object[]{movement.debitAccountId(), movement.transactionId(), movement.type().name(),
+                        LedgerDirection.DEBIT.name(), movement.amount(), now});
+            }
+            if (movement.creditAccountId() != null) {
+                rows.add(new Object[]{movement.creditAccountId(), movement.transactionId(), movement.type().name(),
+                        LedgerDirection.CREDIT.name(), movement.amount(), now});
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        // The writer CTE gives the transaction its id before the row's entry id is drawn,
+        // which the commit horizon of LedgerConsumerService relies on
+        jdbcTemplate.batchUpdate(
+                "WITH writer AS (SELECT pg_current_xact_id()) " +
+                        "INSERT INTO ledger_entries (account_id, transaction_id, entry_type, direction, amount, created_at) " +
+                        "SELECT CAST(? AS BIGINT), CAST(? AS VARCHAR), CAST(? AS ledger_entry_type), " +
+                        "CAST(? AS ledger_direction), CAST(? AS DECIMAL), CAST(? AS TIMESTAMP) FROM writer",
+                rows);
+    }
+
+    /**
+     * Checkpoint every account that has settled entries since the previous run
+     */
+    @Scheduled(fixedDelayString = "${app.ledger.snapshot.interval-ms:3600000}")
+    public void takeSnapshots() {
+        Integer created = transactionTemplate.execute(status -> ledgerConsumerService.foldNextChunk(
+                SNAPSHOT_CONSUMER, Integer.MAX_VALUE, this::snapshot));
+        if (created != null && created > 0) {
+            log.info("Created {} balance snapshots", created);
+        }
+    }
+
+    /**
+     * Compare the stored balance of an account with the one rebuilt from the ledger
+     */
+    public BalanceAuditDto audit(Account account) {
+        Snapshot snapshot = jdbcTemplate.query(
+                        "SELECT last_entry_id, balance FROM account_balance_snapshots " +
+                                "WHERE account_id = ? ORDER BY last_entry_id DESC LIMIT 1",
+                        (rs, rowNum) -> new Snapshot(rs.getLong("last_entry_id"), rs.getBigDecimal("balance")),
+                        account.getId())
+                .stream()
+                .findFirst()
+                .orElse(new Snapshot(0L, BigDecimal.ZERO));
+
+        Delta delta = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*), COALESCE(SUM(" + SIGNED_AMOUNT + "), 0) FROM ledger_entries " +
+                        "WHERE account_id = ? AND id > ?",
+                (rs, rowNum) -> new Delta(rs.getLong(1), rs.getBigDecimal(2)),
+                account.getId(), snapshot.lastEntryId());
+
+        BigDecimal ledgerBalance = snapshot.balance().add(delta.amount());
+        BigDecimal storedBalance = balanceStripingService.currentBalance(account.getId());
+
+        return BalanceAuditDto.builder()
+                .accountId(account.getId())
+                .accountNumber(account.getAccountNumber())
+                .storedBalance(storedBalance)
+                .ledgerBalance(ledgerBalance)
+                .snapshotEntryId(snapshot.lastEntryId())
+                .snapshotBalance(snapshot.balance())
+                .entriesSinceSnapshot(delta.entries())
+                .consistent(storedBalance.compareTo(ledgerBalance) == 0)
+                .build();
+    }
+
+    /**
+     * Overwrite the stored balance of an account with the one rebuilt from the ledger.
+     * Slots are folded first so the whole balance lives in accounts.balance, and every slot
+     * stays locked so no credit can move the balance between the audit and the overwrite.
+     * Only valid while balances are owned by the database rather than the ledger engine.
+     */
+    public BalanceAuditDto rebuildBalance(Account account) {
+        balanceStripingService.foldSlots(account.getId());
+        jdbcTemplate.queryForList("SELECT slot FROM account_balance_slots WHERE account_id = ? FOR UPDATE",
+                Integer.class, account.getId());
+
+        BalanceAuditDto audit = audit(account);
+        if (!audit.isConsistent()) {
+            jdbcTemplate.update("UPDATE accounts SET balance = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?",
+                    audit.getLedgerBalance(), account.getId());
+            log.warn("Rebuilt balance of account {} from {} to {}",
+                    account.getAccountNumber(), audit.getStoredBalance(), audit.getLedgerBalance());
+        }
+        return audit(account);
+    }
+
+    // Helper methods
+    // Every entry at or below the watermark is already inside some account's latest snapshot
+    private int snapshot(long afterId, long upToId) {
+        return jdbcTemplate.update(
+                "INSERT INTO account_balance_snapshots (account_id, last_entry_id, balance) " +
+                        "SELECT d.account_id, d.last_entry_id, COALESCE(s.balance, 0) + d.delta " +
+                        "FROM (SELECT account_id, MAX(id) AS last_entry_id, SUM(" + SIGNED_AMOUNT + ") AS delta " +
+                        "      FROM ledger_entries WHERE id > ? AND id <= ? GROUP BY account_id) d " +
+                        "LEFT JOIN LATERAL (SELECT balance FROM account_balance_snapshots " +
+                        "      WHERE account_id = d.account_id ORDER BY last_entry_id DESC LIMIT 1) s ON TRUE " +
+                        "ON CONFLICT DO NOTHING",
+                afterId, upToId);
+    }
+
+    private record Snapshot(long lastEntryId, BigDecimal balance) {
+    }
+
+    private record Delta(long entries, BigDecimal amount) {
+    }
+}
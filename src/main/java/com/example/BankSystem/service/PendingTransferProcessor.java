@@ -0,0 +1,93 @@
+package com.example.BankSystem.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Drains transfers queued through {@link TransactionService#submitTransfer}.
+ * On every poll a fixed pool of workers claims micro-batches of PENDING rows
+ * until the queue is empty. Off while the ledger engine owns the balances.
+ */
+@Component
+@Slf4j
+@ConditionalOnExpression("${app.transfer.async.enabled:true} and !${app.ledger-engine.enabled:false}")
+public class PendingTransferProcessor {
+
+    private final TransactionService transactionService;
+    private final int workerCount;
+    private final int batchSize;
+    private final ExecutorService workers;
+
+    @Autowired
+    public PendingTransferProcessor(
+            TransactionService transactionService,
+            @Value("${app.transfer.async.workers:4}") int workerCount,
+            @Value("${app.transfer.async.batch-size:100}") int batchSize) {
+        this.transactionService = transactionService;
+        this.workerCount = workerCount;
+        this.batchSize = batchSize;
+        this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "pending-transfer-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.transfer.async.poll-interval-ms:200}")
+    public void drainPendingTransfers() {
+        List<Future<Integer>> results = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            results.add(workers.submit(this::drain));
+        }
+
+        int processed = 0;
+        for (Future<Integer> result : results) {
+            try {
+                processed += result.get();
+            } catch (ExecutionException e) {
+                log.error("Pending transfer worker failed: {}", e.getCause().getMessage(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        if (processed > 0) {
+            log.info("Drained {} pending transfers", processed);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    // Keep claiming batches until a short one signals the queue is empty. A failed batch is
+    // settled again one transfer at a time, so the transfer that broke it cannot block the queue.
+    private int drain() {
+        int total = 0;
+        int claimed;
+        do {
+            try {
+                claimed = transactionService.processPendingTransfers(batchSize);
+            } catch (RuntimeException e) {
+                log.warn("Pending transfer batch failed, settling one by one: {}", e.getMessage());
+                claimed = transactionService.processPendingTransfersOneByOne(batchSize);
+            }
+            total += claimed;
+        } while (claimed == batchSize);
+        return total;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.BankSystem.service;
 
+import com.example.BankSystem.cache.UserDetailsCache;
 import com.example.BankSystem.exception.BadRequestException;
 import com.example.BankSystem.exception.ResourceNotFoundException;
 import com.example.BankSystem.model.Role;
@@ -16,10 +17,12 @@ import java.util.List;
 public class RoleService {
 
     private final RoleRepository roleRepository;
+    private final UserDetailsCache userDetailsCache;
 
     @Autowired
-    public RoleService(RoleRepository roleRepository) {
+    public RoleService(RoleRepository roleRepository, UserDetailsCache userDetailsCache) {
         this.roleRepository = roleRepository;
+        this.userDetailsCache = userDetailsCache;
     }
 
     @Transactional(readOnly = true)
@@ -68,6 +71,8 @@ public class RoleService {
         }
 
         roleRepository.deleteById(id);
+        // Any cached user may have held the role
+        userDetailsCache.invalidateAll();
         log.info("Role deleted successfully");
     }
 }
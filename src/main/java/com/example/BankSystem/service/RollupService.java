@@ -0,0 +1,162 @@
+package com.example.BankSystem.service;
+
+import com.example.BankSystem.dto.DailyRollupDto;
+import com.example.BankSystem.exception.BadRequestException;
+import com.example.BankSystem.exception.ResourceNotFoundException;
+import com.example.BankSystem.model.Account;
+import com.example.BankSystem.repository.AccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Daily inflow and outflow per account. Settled ledger entries are folded into
+ * account_daily_rollups in batches by a scheduled updater, so transfers, deposits and
+ * withdrawals pay nothing extra and a hot account's rollup row is not contended on
+ * the write path. Rollups trail the ledger until the entries' writers have all ended.
+ */
+@Service
+@Slf4j
+public class RollupService {
+
+    private static final String CONSUMER = "daily_rollups";
+
+    // Sums the given ledger entries per account and day; the caller supplies the WHERE clause
+    private static final String ROLLUP_SELECT =
+            "SELECT account_id, CAST(created_at AS DATE), " +
+                    "       COALESCE(SUM(amount) FILTER (WHERE direction = 'CREDIT'), 0), " +
+                    "       COALESCE(SUM(amount) FILTER (WHERE direction = 'DEBIT'), 0), " +
+                    "       COUNT(*) FILTER (WHERE direction = 'CREDIT'), " +
+                    "       COUNT(*) FILTER (WHERE direction = 'DEBIT') " +
+                    "FROM ledger_entries ";
+
+    private static final String ROLLUP_INSERT =
+            "INSERT INTO account_daily_rollups (account_id, day, inflow, outflow, inflow_count, outflow_count) ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final LedgerConsumerService ledgerConsumerService;
+    private final int chunkSize;
+    private final int maxRangeDays;
+
+    @Autowired
+    public RollupService(
+            JdbcTemplate jdbcTemplate,
+            AccountRepository accountRepository,
+            PlatformTransactionManager transactionManager,
+            LedgerConsumerService ledgerConsumerService,
+            @Value("${app.rollups.chunk-size:5000}") int chunkSize,
+            @Value("${app.rollups.max-range-days:366}") int maxRangeDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.accountRepository = accountRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ledgerConsumerService = ledgerConsumerService;
+        this.chunkSize = chunkSize;
+        this.maxRangeDays = maxRangeDays;
+    }
+
+    /**
+     * Fold every ledger entry settled since the previous run into the rollups
+     */
+    @Scheduled(fixedDelayString = "${app.rollups.update-interval-ms:10000}")
+    public void updateRollups() {
+        int total = 0;
+        Integer rollups;
+        do {
+            rollups = transactionTemplate.execute(status -> foldChunk());
+            total += rollups != null ? rollups : 0;
+        } while (rollups != null && rollups > 0);
+
+        if (total > 0) {
+            log.info("Updated {} daily rollups", total);
+        }
+    }
+
+    /**
+     * Recompute the rollups of every account for the given days from the ledger, e.g. to
+     * repair them. Only entries the updater has already folded are counted; later ones
+     * are still left to the updater.
+     */
+    public int rebuild(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        log.info("Rebuilding daily rollups from {} to {}", from, to);
+
+        Integer rows = transactionTemplate.execute(status -> {
+            // Holding the consumer row keeps the updater from folding entries meanwhile
+            long watermark = ledgerConsumerService.lockWatermark(CONSUMER);
+            Date start = Date.valueOf(from);
+            Date end = Date.valueOf(to.plusDays(1));
+
+            jdbcTemplate.update("DELETE FROM account_daily_rollups WHERE day >= ? AND day < ?", start, end);
+            return jdbcTemplate.update(ROLLUP_INSERT + ROLLUP_SELECT +
+                            "WHERE created_at >= ? AND created_at < ? AND id <= ? " +
+                            "GROUP BY account_id, CAST(created_at AS DATE)",
+                    Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.plusDays(1).atStartOfDay()),
+                    watermark);
+        });
+
+        log.info("Rebuilt {} daily rollups", rows);
+        return rows != null ? rows : 0;
+    }
+
+    /**
+     * Daily totals of an account between two days, inclusive, read from the rollups alone.
+     * Days without movements are omitted.
+     */
+    @Transactional(readOnly = true)
+    public List<DailyRollupDto> getDailyRollups(String accountNumber, LocalDate from, LocalDate to) {
+        log.info("Fetching daily rollups of account {} from {} to {}", accountNumber, from, to);
+        validateRange(from, to);
+
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new ResourceNotFoundException("Account", "accountNumber", accountNumber));
+
+        return jdbcTemplate.query(
+                "SELECT day, inflow, outflow, inflow_count, outflow_count FROM account_daily_rollups " +
+                        "WHERE account_id = ? AND day BETWEEN ? AND ? ORDER BY day",
+                (rs, rowNum) -> DailyRollupDto.builder()
+                        .day(rs.getDate("day").toLocalDate())
+                        .inflow(rs.getBigDecimal("inflow"))
+                        .outflow(rs.getBigDecimal("outflow"))
+                        .inflowCount(rs.getInt("inflow_count"))
+                        .outflowCount(rs.getInt("outflow_count"))
+                        .build(),
+                account.getId(), Date.valueOf(from), Date.valueOf(to));
+    }
+
+    // Helper methods
+    private int foldChunk() {
+        return ledgerConsumerService.foldNextChunk(CONSUMER, chunkSize, (afterId, upToId) -> jdbcTemplate.update(
+                ROLLUP_INSERT + ROLLUP_SELECT +
+                        "WHERE id > ? AND id <= ? " +
+                        "GROUP BY account_id, CAST(created_at AS DATE) " +
+                        "ON CONFLICT (account_id, day) DO UPDATE SET " +
+                        "       inflow = account_daily_rollups.inflow + EXCLUDED.inflow, " +
+                        "       outflow = account_daily_rollups.outflow + EXCLUDED.outflow, " +
+                        "       inflow_count = account_daily_rollups.inflow_count + EXCLUDED.inflow_count, " +
+                        "       outflow_count = account_daily_rollups.outflow_count + EXCLUDED.outflow_count",
+                afterId, upToId));
+    }
+
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new BadRequestException("'from' must not be after 'to'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxRangeDays) {
+            throw new BadRequestException("Date range cannot be longer than " + maxRangeDays + " days");
+        }
+    }
+}
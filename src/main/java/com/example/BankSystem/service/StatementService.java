@@ -0,0 +1,227 @@
+package com.example.BankSystem.service;
+
+import com.example.BankSystem.dto.StatementDto;
+import com.example.BankSystem.dto.StatementEntryDto;
+import com.example.BankSystem.exception.BadRequestException;
+import com.example.BankSystem.exception.ResourceNotFoundException;
+import com.example.BankSystem.model.Account;
+import com.example.BankSystem.repository.AccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Monthly account statements. Settled ledger entries are folded, in chunks and in
+ * entry order, into statement_entries with the running balance after each one, and
+ * into one account_statements row per account and month. Reading a statement is then
+ * a single indexed query instead of a replay of the account's whole history.
+ * <p>
+ * Building tails the ledger rather than running inside each transfer so that the
+ * transfer path takes no extra row locks; statements trail the ledger until the writers of
+ * its entries have all ended.
+ */
+@Service
+@Slf4j
+public class StatementService {
+
+    private static final String CONSUMER = "statements";
+
+    // Creation time of a time-ordered (version 7) transaction id, or null for older random ids
+    private static final String ISSUED_AT =
+            "CASE WHEN substr(transaction_id, 15, 1) = '7' THEN CAST(to_timestamp(" +
+                    "CAST(CAST('x' || substr(transaction_id, 1, 8) || substr(transaction_id, 10, 4) AS BIT(48)) " +
+                    "AS BIGINT) / 1000.0) AS TIMESTAMP) END";
+
+    private static final String INSERT_ENTRIES =
+            "WITH chunk AS (SELECT id, account_id, transaction_id, entry_type, direction, amount, created_at, " +
+                    "       " + LedgerService.SIGNED_AMOUNT + " AS signed_amount, " + ISSUED_AT + " AS issued_at " +
+                    "       FROM ledger_entries WHERE id > ? AND id <= ?) " +
+                    "INSERT INTO statement_entries (ledger_entry_id, account_id, period, transaction_id, entry_type, " +
+                    "       direction, amount, running_balance, description, created_at) " +
+                    "SELECT c.id, c.account_id, CAST(date_trunc('month', c.created_at) AS DATE), c.transaction_id, " +
+                    "       c.entry_type, c.direction, c.amount, " +
+                    "       p.balance + SUM(c.signed_amount) OVER (PARTITION BY c.account_id ORDER BY c.id), " +
+                    // Bounding the partition key by the id's creation time prunes the lookup to a
+                    // partition or two; only random ids from before time-ordered ids probe them all
+                    "       CASE WHEN c.issued_at IS NOT NULL THEN " +
+                    "            (SELECT t.description FROM transactions t WHERE t.transaction_id = c.transaction_id " +
+                    "             AND t.timestamp >= c.issued_at - make_interval(secs => ?) " +
+                    "             AND t.timestamp < c.issued_at + make_interval(secs => ?)) " +
+                    "       WHEN c.transaction_id IS NOT NULL THEN " +
+                    "            (SELECT t.description FROM transactions t WHERE t.transaction_id = c.transaction_id) " +
+                    "       END, c.created_at " +
+                    "FROM chunk c " +
+                    // Carry on from the latest statement, or from the opening checkpoint of the ledger
+                    "CROSS JOIN LATERAL (SELECT COALESCE(" +
+                    "       (SELECT closing_balance FROM account_statements WHERE account_id = c.account_id " +
+                    "        ORDER BY period DESC LIMIT 1), " +
+                    "       (SELECT balance FROM account_balance_snapshots WHERE account_id = c.account_id " +
+                    "        AND last_entry_id = 0), 0) AS balance) p";
+
+    private static final String UPSERT_STATEMENTS =
+            "INSERT INTO account_statements (account_id, period, opening_balance, closing_balance, " +
+                    "       total_credits, total_debits, entry_count, last_entry_id) " +
+                    "SELECT account_id, period, " +
+                    "       (ARRAY_AGG(running_balance - " + LedgerService.SIGNED_AMOUNT + " ORDER BY ledger_entry_id))[1], " +
+                    "       (ARRAY_AGG(running_balance ORDER BY ledger_entry_id DESC))[1], " +
+                    "       COALESCE(SUM(amount) FILTER (WHERE direction = 'CREDIT'), 0), " +
+                    "       COALESCE(SUM(amount) FILTER (WHERE direction = 'DEBIT'), 0), " +
+                    "       COUNT(*), MAX(ledger_entry_id) " +
+                    "FROM statement_entries WHERE ledger_entry_id > ? AND ledger_entry_id <= ? " +
+                    "GROUP BY account_id, period " +
+                    "ON CONFLICT (account_id, period) DO UPDATE SET " +
+                    "       closing_balance = EXCLUDED.closing_balance, " +
+                    "       total_credits = account_statements.total_credits + EXCLUDED.total_credits, " +
+                    "       total_debits = account_statements.total_debits + EXCLUDED.total_debits, " +
+                    "       entry_count = account_statements.entry_count + EXCLUDED.entry_count, " +
+                    "       last_entry_id = EXCLUDED.last_entry_id, " +
+                    "       updated_at = CURRENT_TIMESTAMP";
+
+    private static final String STATEMENT_QUERY =
+            "SELECT s.opening_balance, s.closing_balance, s.total_credits, s.total_debits, s.entry_count, " +
+                    "       e.transaction_id, CAST(e.entry_type AS VARCHAR) AS entry_type, " +
+                    "       CAST(e.direction AS VARCHAR) AS direction, e.amount, e.running_balance, " +
+                    "       e.description, e.created_at " +
+                    "FROM account_statements s " +
+                    "JOIN statement_entries e ON e.account_id = s.account_id AND e.period = s.period " +
+                    "WHERE s.account_id = ? AND s.period = ? " +
+                    "ORDER BY e.ledger_entry_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final LedgerConsumerService ledgerConsumerService;
+    private final Duration partitionLookupWindow;
+    private final int chunkSize;
+    private final int maxChunksPerRun;
+
+    @Autowired
+    public StatementService(
+            JdbcTemplate jdbcTemplate,
+            AccountRepository accountRepository,
+            PlatformTransactionManager transactionManager,
+            LedgerConsumerService ledgerConsumerService,
+            @Value("${app.transactions.partitions.lookup-window:PT24H}") Duration partitionLookupWindow,
+            @Value("${app.statements.chunk-size:5000}") int chunkSize,
+            @Value("${app.statements.max-chunks-per-run:20}") int maxChunksPerRun) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.accountRepository = accountRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ledgerConsumerService = ledgerConsumerService;
+        this.partitionLookupWindow = partitionLookupWindow;
+        this.chunkSize = chunkSize;
+        this.maxChunksPerRun = maxChunksPerRun;
+    }
+
+    /**
+     * Fold the ledger entries settled since the previous run into the statements
+     */
+    @Scheduled(fixedDelayString = "${app.statements.build-interval-ms:10000}")
+    public void buildStatements() {
+        int entries = build(maxChunksPerRun);
+        if (entries > 0) {
+            log.info("Added {} ledger entries to account statements", entries);
+        }
+    }
+
+    /**
+     * Build statements for the whole settled ledger, e.g. after deploying the statement tables
+     */
+    public int backfill() {
+        log.info("Backfilling account statements from the ledger");
+        int entries = build(Integer.MAX_VALUE);
+        log.info("Backfill added {} ledger entries to account statements", entries);
+        return entries;
+    }
+
+    @Transactional(readOnly = true)
+    public StatementDto getStatement(String accountNumber, YearMonth period) {
+        log.info("Fetching statement of account {} for {}", accountNumber, period);
+
+        if (period.isAfter(YearMonth.now())) {
+            throw new BadRequestException("Statement period cannot be in the future");
+        }
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new ResourceNotFoundException("Account", "accountNumber", accountNumber));
+
+        Date periodStart = Date.valueOf(period.atDay(1));
+        StatementDto statement = StatementDto.builder()
+                .accountNumber(accountNumber)
+                .period(period)
+                .entries(new ArrayList<>())
+                .build();
+
+        jdbcTemplate.query(STATEMENT_QUERY, rs -> {
+            if (statement.getOpeningBalance() == null) {
+                statement.setOpeningBalance(rs.getBigDecimal("opening_balance"));
+                statement.setClosingBalance(rs.getBigDecimal("closing_balance"));
+                statement.setTotalCredits(rs.getBigDecimal("total_credits"));
+                statement.setTotalDebits(rs.getBigDecimal("total_debits"));
+                statement.setEntryCount(rs.getInt("entry_count"));
+            }
+            statement.getEntries().add(StatementEntryDto.builder()
+                    .transactionId(rs.getString("transaction_id"))
+                    .entryType(rs.getString("entry_type"))
+                    .direction(rs.getString("direction"))
+                    .amount(rs.getBigDecimal("amount"))
+                    .runningBalance(rs.getBigDecimal("running_balance"))
+                    .description(rs.getString("description"))
+                    .timestamp(rs.getTimestamp("created_at").toLocalDateTime())
+                    .build());
+        }, account.getId(), periodStart);
+
+        if (statement.getOpeningBalance() == null) {
+            // No activity that month: the balance is whatever the previous statement closed at
+            BigDecimal balance = balanceBefore(account.getId(), periodStart);
+            statement.setOpeningBalance(balance);
+            statement.setClosingBalance(balance);
+            statement.setTotalCredits(BigDecimal.ZERO);
+            statement.setTotalDebits(BigDecimal.ZERO);
+        }
+        return statement;
+    }
+
+    // Helper methods
+    private int build(int maxChunks) {
+        int total = 0;
+        for (int i = 0; i < maxChunks; i++) {
+            Integer entries = transactionTemplate.execute(status -> buildChunk());
+            if (entries == null || entries == 0) {
+                break;
+            }
+            total += entries;
+        }
+        return total;
+    }
+
+    private int buildChunk() {
+        long windowSeconds = partitionLookupWindow.toSeconds();
+        return ledgerConsumerService.foldNextChunk(CONSUMER, chunkSize, (afterId, upToId) -> {
+            int entries = jdbcTemplate.update(INSERT_ENTRIES, afterId, upToId, windowSeconds, windowSeconds);
+            jdbcTemplate.update(UPSERT_STATEMENTS, afterId, upToId);
+            return entries;
+        });
+    }
+
+    private BigDecimal balanceBefore(Long accountId, Date periodStart) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE(" +
+                        "(SELECT closing_balance FROM account_statements WHERE account_id = ? AND period < ? " +
+                        " ORDER BY period DESC LIMIT 1), " +
+                        "(SELECT balance FROM account_balance_snapshots WHERE account_id = ? AND last_entry_id = 0), 0)",
+                BigDecimal.class, accountId, periodStart, accountId);
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.BankSystem.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly partitions of transactions (see V14) in shape: partitions are created
+ * a few months ahead so inserts never find their month missing, and partitions wholly
+ * older than the retention period are detached and moved to the archive schema.
+ * <p>
+ * There is no DEFAULT partition: rows in it would block creating the partition for their
+ * month. Instead partitions are also created at startup, and an error is logged whenever
+ * fewer than min-months-ahead future months have one, well before inserts start failing.
+ */
+@Component
+@Slf4j
+public class TransactionPartitionManager {
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Pattern RANGE_BOUND =
+            Pattern.compile("FROM \\((?:'([^']+)'|MINVALUE)\\) TO \\((?:'([^']+)'|MAXVALUE)\\)");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int minMonthsAhead;
+    private final int retentionMonths;
+
+    @Autowired
+    public TransactionPartitionManager(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.transactions.partitions.months-ahead:3}") int monthsAhead,
+            @Value("${app.transactions.partitions.min-months-ahead:2}") int minMonthsAhead,
+            @Value("${app.transactions.partitions.retention-months:0}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+        this.minMonthsAhead = minMonthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    /**
+     * A partition of transactions and the range of timestamps it holds; null bounds are unbounded
+     */
+    public record Partition(String name, LocalDateTime from, LocalDateTime to) {
+
+        boolean covers(LocalDateTime timestamp) {
+            return (from == null || !timestamp.isBefore(from)) && (to == null || timestamp.isBefore(to));
+        }
+    }
+
+    // The cron alone would leave a node that was down for months without partitions
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            createUpcomingPartitions();
+            checkMonthsAhead();
+        } catch (DataAccessException e) {
+            log.error("Could not check transaction partitions at startup: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(cron = "${app.transactions.partitions.cron:0 0 3 * * *}")
+    public void maintainPartitions() {
+        createUpcomingPartitions();
+        checkMonthsAhead();
+        if (retentionMonths > 0) {
+            archiveExpiredPartitions();
+        }
+    }
+
+    public void createUpcomingPartitions() {
+        List<Partition> partitions = findPartitions();
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (!covers(partitions, month)) {
+                createPartition(month);
+            }
+        }
+    }
+
+    /**
+     * Detach every partition whose whole range is older than the retention period
+     */
+    public void archiveExpiredPartitions() {
+        LocalDateTime cutoff = YearMonth.now().minusMonths(retentionMonths).atDay(1).atStartOfDay();
+        for (Partition partition : findPartitions()) {
+            if (partition.to() != null && !partition.to().isAfter(cutoff)) {
+                archive(partition);
+            }
+        }
+    }
+
+    /**
+     * Number of months after the current one that have a partition, counted up to the first
+     * gap; -1 when even the current month has none
+     */
+    public int monthsAheadCovered() {
+        List<Partition> partitions = findPartitions();
+        YearMonth current = YearMonth.now();
+        int covered = -1;
+        while (covered < Math.max(monthsAhead, minMonthsAhead)
+                && covers(partitions, current.plusMonths(covered + 1))) {
+            covered++;
+        }
+        return covered;
+    }
+
+    public List<Partition> findPartitions() {
+        return jdbcTemplate.query(
+                "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) AS bound " +
+                        "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = 'transactions'::regclass ORDER BY c.relname",
+                (rs, rowNum) -> toPartition(rs.getString("relname"), rs.getString("bound")));
+    }
+
+    // Helper methods
+    private void checkMonthsAhead() {
+        int covered = monthsAheadCovered();
+        if (covered < minMonthsAhead) {
+            log.error("Transaction partitions only cover {} month(s) ahead, fewer than {}; " +
+                    "transfer inserts fail once a month has no partition", Math.max(covered, 0), minMonthsAhead);
+        }
+    }
+
+    private boolean covers(List<Partition> partitions, YearMonth month) {
+        LocalDateTime start = month.atDay(1).atStartOfDay();
+        return partitions.stream().anyMatch(partition -> partition.covers(start));
+    }
+
+    private void createPartition(YearMonth month) {
+        String name = "transactions_p" + month.format(PARTITION_SUFFIX);
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF transactions " +
+                    "FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+            log.info("Created transaction partition {}", name);
+        } catch (DataAccessException e) {
+            // Usually another instance got there first
+            log.warn("Could not create transaction partition {}: {}", name, e.getMessage());
+        }
+    }
+
+    private void archive(Partition partition) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute("ALTER TABLE transactions DETACH PARTITION " + partition.name());
+                jdbcTemplate.execute("ALTER TABLE " + partition.name() + " SET SCHEMA archive");
+            });
+            log.info("Archived transaction partition {} (up to {})", partition.name(), partition.to());
+        } catch (DataAccessException e) {
+            log.warn("Could not archive transaction partition {}: {}", partition.name(), e.getMessage());
+        }
+    }
+
+    private Partition toPartition(String name, String bound) {
+        Matcher matcher = RANGE_BOUND.matcher(bound);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Unexpected bound for partition " + name + ": " + bound);
+        }
+        return new Partition(name, parseBound(matcher.group(1)), parseBound(matcher.group(2)));
+    }
+
+    private LocalDateTime parseBound(String value) {
+        return value == null ? null : LocalDateTime.parse(value.replace(' ', 'T'));
+    }
+}
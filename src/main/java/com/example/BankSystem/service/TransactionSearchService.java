@@ -0,0 +1,171 @@
+package com.example.BankSystem.service;
+
+import com.example.BankSystem.dto.CursorPage;
+import com.example.BankSystem.dto.TransactionCursor;
+import com.example.BankSystem.dto.TransactionDto;
+import com.example.BankSystem.dto.TransactionSearchRequest;
+import com.example.BankSystem.enums.TransactionStatus;
+import com.example.BankSystem.enums.TransactionType;
+import com.example.BankSystem.exception.BadRequestException;
+import com.example.BankSystem.exception.ResourceNotFoundException;
+import com.example.BankSystem.model.Account;
+import com.example.BankSystem.model.Transaction;
+import com.example.BankSystem.repository.AccountRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ad-hoc transaction search for operations. Any combination of account, type, status
+ * and amount range can be given, but the date range is mandatory and bounded, pages are
+ * capped and every query runs under a timeout, so no search can walk the whole table.
+ * Results are ordered newest first and paged with a (timestamp, id) cursor.
+ */
+@Service
+@Slf4j
+public class TransactionSearchService {
+
+    private final EntityManager entityManager;
+    private final AccountRepository accountRepository;
+    private final Duration maxRange;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int queryTimeoutMs;
+
+    @Autowired
+    public TransactionSearchService(
+            EntityManager entityManager,
+            AccountRepository accountRepository,
+            @Value("${app.transactions.search.max-range:P92D}") Duration maxRange,
+            @Value("${app.transactions.search.default-page-size:50}") int defaultPageSize,
+            @Value("${app.transactions.search.max-page-size:200}") int maxPageSize,
+            @Value("${app.transactions.search.timeout-ms:5000}") int queryTimeoutMs) {
+        this.entityManager = entityManager;
+        this.accountRepository = accountRepository;
+        this.maxRange = maxRange;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.queryTimeoutMs = queryTimeoutMs;
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<TransactionDto> search(TransactionSearchRequest request) {
+        log.info("Searching transactions between {} and {}", request.getFrom(), request.getTo());
+
+        int limit = request.getLimit() != null ? request.getLimit() : defaultPageSize;
+        if (limit < 1 || limit > maxPageSize) {
+            throw new BadRequestException("Limit must be between 1 and " + maxPageSize);
+        }
+        if (!request.getFrom().isBefore(request.getTo())) {
+            throw new BadRequestException("'from' must be before 'to'");
+        }
+        if (Duration.between(request.getFrom(), request.getTo()).compareTo(maxRange) > 0) {
+            throw new BadRequestException("Date range cannot be longer than " + maxRange.toDays() + " days");
+        }
+        if (request.getMinAmount() != null && request.getMaxAmount() != null
+                && request.getMinAmount().compareTo(request.getMaxAmount()) > 0) {
+            throw new BadRequestException("Minimum amount cannot be greater than maximum amount");
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TransactionDto> query = cb.createQuery(TransactionDto.class);
+        Root<Transaction> transaction = query.from(Transaction.class);
+        Join<Transaction, Account> source = transaction.join("sourceAccount", JoinType.LEFT);
+        Join<Transaction, Account> destination = transaction.join("destinationAccount", JoinType.LEFT);
+        Path<LocalDateTime> timestamp = transaction.get("timestamp");
+        Path<Long> id = transaction.get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.greaterThanOrEqualTo(timestamp, request.getFrom()));
+        predicates.add(cb.lessThan(timestamp, request.getTo()));
+
+        if (request.getAccountNumber() != null) {
+            Account account = accountRepository.findByAccountNumber(request.getAccountNumber())
+                    .orElseThrow(() -> new ResourceNotFoundException(
+                            "Account", "accountNumber", request.getAccountNumber()));
+            predicates.add(cb.or(
+                    cb.equal(transaction.get("sourceAccount"), account),
+                    cb.equal(transaction.get("destinationAccount"), account)));
+        }
+        if (request.getType() != null) {
+            predicates.add(cb.equal(transaction.get("type"), parseType(request.getType())));
+        }
+        if (request.getStatus() != null) {
+            predicates.add(cb.equal(transaction.get("status"), parseStatus(request.getStatus())));
+        }
+        if (request.getMinAmount() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(transaction.get("amount"), request.getMinAmount()));
+        }
+        if (request.getMaxAmount() != null) {
+            predicates.add(cb.lessThanOrEqualTo(transaction.get("amount"), request.getMaxAmount()));
+        }
+        if (request.getAfter() != null) {
+            // Seek past the cursor: (timestamp, id) < (cursor.timestamp, cursor.id)
+            TransactionCursor cursor = TransactionCursor.decode(request.getAfter());
+            predicates.add(cb.or(
+                    cb.lessThan(timestamp, cursor.timestamp()),
+                    cb.and(cb.equal(timestamp, cursor.timestamp()), cb.lessThan(id, cursor.id()))));
+        }
+
+        query.select(cb.construct(TransactionDto.class,
+                        id,
+                        transaction.get("transactionId"),
+                        source.get("accountNumber"),
+                        destination.get("accountNumber"),
+                        transaction.get("amount"),
+                        transaction.get("type"),
+                        transaction.get("status"),
+                        transaction.get("description"),
+                        timestamp))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(timestamp), cb.desc(id));
+
+        // One extra row tells whether another page exists
+        List<TransactionDto> rows = entityManager.createQuery(query)
+                .setMaxResults(limit + 1)
+                .setHint(SpecHints.HINT_SPEC_QUERY_TIMEOUT, queryTimeoutMs)
+                .getResultList();
+
+        boolean hasMore = rows.size() > limit;
+        List<TransactionDto> items = hasMore ? rows.subList(0, limit) : rows;
+
+        return CursorPage.<TransactionDto>builder()
+                .items(items)
+                .limit(limit)
+                .nextCursor(hasMore ? TransactionCursor.of(items.get(items.size() - 1)).encode() : null)
+                .build();
+    }
+
+    // Helper methods
+    private TransactionType parseType(String type) {
+        try {
+            return TransactionType.valueOf(type);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid transaction type: " + type);
+        }
+    }
+
+    private TransactionStatus parseStatus(String status) {
+        try {
+            return TransactionStatus.valueOf(status);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid transaction status: " + status);
+        }
+    }
+}
@@ -1,31 +1,66 @@
 package com.example.BankSystem.service;
 
+import com.example.BankSystem.dto.BatchTransferRequest;
+import com.example.BankSystem.dto.BatchTransferResponse;
+import com.example.BankSystem.dto.CursorPage;
+import com.example.BankSystem.dto.TransactionCursor;
 import com.example.BankSystem.dto.TransactionDto;
+import com.example.BankSystem.dto.TransactionView;
 import com.example.BankSystem.dto.TransferRequest;
 import com.example.BankSystem.dto.TransferResponse;
+import com.example.BankSystem.engine.LedgerEngine;
+import com.example.BankSystem.engine.LedgerResult;
+import com.example.BankSystem.enums.ExportFormat;
+import com.example.BankSystem.export.TransactionExportWriter;
 import com.example.BankSystem.exception.AccountClosedException;
 import com.example.BankSystem.exception.BadRequestException;
 import com.example.BankSystem.exception.InsufficientFundsException;
+import com.example.BankSystem.exception.InvalidTransactionException;
 import com.example.BankSystem.exception.ResourceNotFoundException;
+import com.example.BankSystem.id.TimeOrderedTransactionIdGenerator;
+import com.example.BankSystem.id.TransactionIdGenerator;
 import com.example.BankSystem.model.Account;
 import com.example.BankSystem.model.Transaction;
 import com.example.BankSystem.enums.AccountStatus;
+import com.example.BankSystem.enums.BatchTransferMode;
 import com.example.BankSystem.enums.TransactionStatus;
 import com.example.BankSystem.enums.TransactionType;
 import com.example.BankSystem.repository.AccountRepository;
 import com.example.BankSystem.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
@@ -33,19 +68,64 @@ public class TransactionService {
 
     private final TransactionRepository transactionRepository;
     private final AccountRepository accountRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final BalanceStripingService balanceStripingService;
+    private final LedgerService ledgerService;
+    private final IdempotencyService idempotencyService;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final Optional<LedgerEngine> ledgerEngine;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    @Value("${app.transfer.batch.max-size:1000}")
+    private int maxBatchSize;
+
+    @Value("${app.transactions.history.max-page-size:200}")
+    private int maxHistoryPageSize;
+
+    @Value("${app.transactions.export.flush-interval:500}")
+    private int exportFlushInterval;
+
+    @Value("${app.transactions.partitions.lookup-window:PT24H}")
+    private Duration partitionLookupWindow;
+
+    @Value("${app.transfer.async.max-attempts:5}")
+    private int maxSettleAttempts;
+
+    @Value("${app.transfer.async.retry-delay:PT1S}")
+    private Duration settleRetryDelay;
 
     @Autowired
-    public TransactionService(TransactionRepository transactionRepository, AccountRepository accountRepository) {
+    public TransactionService(
+            TransactionRepository transactionRepository,
+            AccountRepository accountRepository,
+            JdbcTemplate jdbcTemplate,
+            BalanceStripingService balanceStripingService,
+            LedgerService ledgerService,
+            IdempotencyService idempotencyService,
+            TransactionIdGenerator transactionIdGenerator,
+            Optional<LedgerEngine> ledgerEngine,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager) {
         this.transactionRepository = transactionRepository;
         this.accountRepository = accountRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.balanceStripingService = balanceStripingService;
+        this.ledgerService = ledgerService;
+        this.idempotencyService = idempotencyService;
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.ledgerEngine = ledgerEngine;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
     }
 
     @Transactional(readOnly = true)
     public List<TransactionDto> getAllTransactions() {
         log.info("Fetching all transactions");
-        return transactionRepository.findAll().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return transactionRepository.findAllAsDto();
     }
 
     @Transactional(readOnly = true)
@@ -59,7 +139,7 @@ public class TransactionService {
     @Transactional(readOnly = true)
     public TransactionDto getTransactionByTransactionId(String transactionId) {
         log.info("Fetching transaction with transaction ID: {}", transactionId);
-        Transaction transaction = transactionRepository.findByTransactionId(transactionId)
+        Transaction transaction = findByTransactionId(transactionId)
                 .orElseThrow(() -> new ResourceNotFoundException("Transaction", "transactionId", transactionId));
         return convertToDto(transaction);
     }
@@ -70,7 +150,7 @@ public class TransactionService {
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new ResourceNotFoundException("Account", "accountNumber", accountNumber));
 
-        return transactionRepository.findByAccount(account).stream()
+        return transactionRepository.findByAccount(account.getId()).stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
@@ -81,10 +161,84 @@ public class TransactionService {
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new ResourceNotFoundException("Account", "accountNumber", accountNumber));
 
-        return transactionRepository.findByAccount(account, pageable)
+        return transactionRepository.findByAccount(account.getId(), pageable)
                 .map(this::convertToDto);
     }
 
+    /**
+     * Export every transaction. The returned body runs after the controller returns, in its
+     * own read-only transaction, and writes rows as they are read from the database.
+     */
+    public StreamingResponseBody exportAllTransactions(ExportFormat format) {
+        log.info("Exporting all transactions as {}", format);
+        return outputStream -> export(transactionRepository::streamAll, Function.identity(), format, outputStream);
+    }
+
+    /**
+     * Export the transactions of an account, newest first. The account is checked up front
+     * so a missing one still produces a 404 rather than an empty download.
+     */
+    public StreamingResponseBody exportTransactionsByAccountNumber(String accountNumber, ExportFormat format) {
+        log.info("Exporting transactions for account {} as {}", accountNumber, format);
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new ResourceNotFoundException("Account", "accountNumber", accountNumber));
+        Long accountId = account.getId();
+        return outputStream -> export(() -> transactionRepository.streamByAccount(accountId), this::convertToDto,
+                format, outputStream);
+    }
+
+    /**
+     * Keyset-paginated history of an account, newest first. At most one of after/before
+     * may be given; without either the newest page is returned. No total count is computed.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<TransactionDto> getTransactionHistory(String accountNumber, String after, String before,
+                                                            int limit) {
+        log.info("Fetching transaction history for account: {}", accountNumber);
+
+        if (limit < 1 || limit > maxHistoryPageSize) {
+            throw new BadRequestException("Limit must be between 1 and " + maxHistoryPageSize);
+        }
+        if (after != null && before != null) {
+            throw new BadRequestException("Only one of 'after' and 'before' can be given");
+        }
+
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new ResourceNotFoundException("Account", "accountNumber", accountNumber));
+
+        // One extra row tells whether another page exists in the direction of travel
+        List<TransactionView> rows;
+        if (before != null) {
+            TransactionCursor cursor = TransactionCursor.decode(before);
+            rows = transactionRepository.findHistoryPageBefore(account.getId(), cursor.timestamp(), cursor.id(), limit + 1);
+        } else if (after != null) {
+            TransactionCursor cursor = TransactionCursor.decode(after);
+            rows = transactionRepository.findHistoryPageAfter(account.getId(), cursor.timestamp(), cursor.id(), limit + 1);
+        } else {
+            rows = transactionRepository.findHistoryPage(account.getId(), limit + 1);
+        }
+
+        boolean hasMore = rows.size() > limit;
+        List<TransactionDto> items = rows.stream()
+                .limit(limit)
+                .map(this::convertToDto)
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (before != null) {
+            Collections.reverse(items);
+        }
+
+        // Stepping back from a cursor always leaves the cursor row itself on the other side
+        boolean hasOlder = before != null ? !items.isEmpty() : hasMore;
+        boolean hasNewer = before != null ? hasMore : after != null && !items.isEmpty();
+
+        return CursorPage.<TransactionDto>builder()
+                .items(items)
+                .limit(limit)
+                .nextCursor(hasOlder ? TransactionCursor.of(items.get(items.size() - 1)).encode() : null)
+                .previousCursor(hasNewer ? TransactionCursor.of(items.get(0)).encode() : null)
+                .build();
+    }
+
     @Transactional
     public TransferResponse transferFunds(TransferRequest request) {
         log.info("Initiating transfer from {} to {} for amount {}",
@@ -95,12 +249,22 @@ public class TransactionService {
             throw new BadRequestException("Transfer amount must be positive");
         }
 
-        // Get accounts
-        Account sourceAccount = accountRepository.findByAccountNumber(request.getSourceAccountNumber())
-                .orElseThrow(() -> new ResourceNotFoundException("Account", "accountNumber", request.getSourceAccountNumber()));
+        if (request.getSourceAccountNumber().equals(request.getDestinationAccountNumber())) {
+            throw new BadRequestException("Source and destination accounts must be different");
+        }
+
+        if (ledgerEngine.isPresent()) {
+            return transferThroughLedgerEngine(ledgerEngine.get(), request);
+        }
+
+        // One unlocked read for both accounts: the ids fix the update order and feed the ledger,
+        // and the slot count decides where the credit lands. The balances themselves are only
+        // changed by the conditional updates below.
+        List<Account> accounts = accountRepository.findByAccountNumberIn(
+                List.of(request.getSourceAccountNumber(), request.getDestinationAccountNumber()));
 
-        Account destinationAccount = accountRepository.findByAccountNumber(request.getDestinationAccountNumber())
-                .orElseThrow(() -> new ResourceNotFoundException("Account", "accountNumber", request.getDestinationAccountNumber()));
+        Account sourceAccount = findByAccountNumber(accounts, request.getSourceAccountNumber());
+        Account destinationAccount = findByAccountNumber(accounts, request.getDestinationAccountNumber());
 
         // Check if accounts are active
         if (sourceAccount.getStatus() != AccountStatus.ACTIVE) {
@@ -111,22 +275,15 @@ public class TransactionService {
             throw new AccountClosedException("Destination account is not active");
         }
 
-        // Check sufficient funds
-        if (sourceAccount.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new InsufficientFundsException("Insufficient funds in source account");
-        }
+        // Move the money with conditional updates; the funds check happens in the debit statement
+        applyTransfer(sourceAccount, destinationAccount, request.getAmount());
 
         // Generate transaction ID
-        String transactionId = UUID.randomUUID().toString();
+        String transactionId = transactionIdGenerator.nextId();
+        ledgerService.record(LedgerService.Movement.transfer(
+                transactionId, sourceAccount.getId(), destinationAccount.getId(), request.getAmount()));
 
         try {
-            // Update account balances
-            sourceAccount.setBalance(sourceAccount.getBalance().subtract(request.getAmount()));
-            destinationAccount.setBalance(destinationAccount.getBalance().add(request.getAmount()));
-
-            accountRepository.save(sourceAccount);
-            accountRepository.save(destinationAccount);
-
             // Create transaction record
             Transaction transaction = Transaction.builder()
                     .transactionId(transactionId)
@@ -158,7 +315,489 @@ public class TransactionService {
         }
     }
 
+    /**
+     * Transfer guarded by a client supplied Idempotency-Key. A replayed key returns the
+     * original response; the key and response are stored in the same transaction as
+     * the transfer itself.
+     */
+    public TransferResponse transferFunds(TransferRequest request, String idempotencyKey) {
+        String scopedKey = idempotencyService.scopeKey(idempotencyKey);
+
+        // Replays answered from memory never open a transaction or touch the accounts
+        Optional<TransferResponse> cachedResponse = idempotencyService.findCached(scopedKey, request);
+        if (cachedResponse.isPresent()) {
+            log.info("Returning cached response for idempotency key {}", scopedKey);
+            return cachedResponse.get();
+        }
+
+        return transactionTemplate.execute(status -> idempotencyService.reserve(scopedKey, request)
+                .orElseGet(() -> {
+                    TransferResponse response = transferFunds(request);
+                    idempotencyService.complete(scopedKey, request, response);
+                    return response;
+                }));
+    }
+
+    @Transactional
+    public BatchTransferResponse transferFundsBatch(BatchTransferRequest batchRequest) {
+        List<TransferRequest> requests = batchRequest.getTransfers();
+        BatchTransferMode mode = batchRequest.getMode() != null ? batchRequest.getMode() : BatchTransferMode.ALL_OR_NOTHING;
+        log.info("Initiating batch of {} transfers in {} mode", requests.size(), mode);
+
+        requireDatabaseOwnedBalances();
+
+        if (requests.size() > maxBatchSize) {
+            throw new BadRequestException("Batch size exceeds the maximum of " + maxBatchSize + " transfers");
+        }
+
+        Set<String> accountNumbers = new HashSet<>();
+        for (TransferRequest request : requests) {
+            accountNumbers.add(request.getSourceAccountNumber());
+            accountNumbers.add(request.getDestinationAccountNumber());
+        }
+
+        // Lock every account the batch touches in one statement, in ascending id order
+        Map<String, Account> accounts = accountRepository.lockAllByAccountNumberIn(accountNumbers).stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+
+        // Rows are locked, so items can be checked against running balances held in memory
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        accounts.values().forEach(account -> balances.put(account.getId(), lockedBalance(account)));
+        Map<Long, BigDecimal> balanceChanges = new TreeMap<>();
+
+        LocalDateTime timestamp = LocalDateTime.now();
+        List<TransferResponse> results = new ArrayList<>(requests.size());
+        List<Object[]> transactionRows = new ArrayList<>(requests.size());
+        List<LedgerService.Movement> movements = new ArrayList<>(requests.size());
+
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequest request = requests.get(i);
+            String failure = checkBatchItem(request, accounts, balances);
+
+            if (failure != null) {
+                if (mode == BatchTransferMode.ALL_OR_NOTHING) {
+                    throw new InvalidTransactionException("Transfer #" + (i + 1) + " failed: " + failure);
+                }
+                results.add(buildTransferResponse(request, null, timestamp, TransactionStatus.FAILED, failure));
+                continue;
+            }
+
+            Account sourceAccount = accounts.get(request.getSourceAccountNumber());
+            Account destinationAccount = accounts.get(request.getDestinationAccountNumber());
+            BigDecimal amount = request.getAmount();
+
+            balances.merge(sourceAccount.getId(), amount.negate(), BigDecimal::add);
+            balances.merge(destinationAccount.getId(), amount, BigDecimal::add);
+            balanceChanges.merge(sourceAccount.getId(), amount.negate(), BigDecimal::add);
+            balanceChanges.merge(destinationAccount.getId(), amount, BigDecimal::add);
+
+            String transactionId = transactionIdGenerator.nextId();
+            transactionRows.add(new Object[]{
+                    transactionId,
+                    sourceAccount.getId(),
+                    destinationAccount.getId(),
+                    amount,
+                    TransactionType.TRANSFER.name(),
+                    TransactionStatus.COMPLETED.name(),
+                    request.getDescription(),
+                    Timestamp.valueOf(timestamp)
+            });
+            movements.add(LedgerService.Movement.transfer(
+                    transactionId, sourceAccount.getId(), destinationAccount.getId(), amount));
+            results.add(buildTransferResponse(request, transactionId, timestamp,
+                    TransactionStatus.COMPLETED, "Transfer completed successfully"));
+        }
+
+        applyBalanceChanges(balanceChanges);
+
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO transactions (transaction_id, source_account_id, destination_account_id, amount, " +
+                        "type, status, description, timestamp) " +
+                        "VALUES (?, ?, ?, ?, CAST(? AS transaction_type), CAST(? AS transaction_status), ?, ?)",
+                transactionRows);
+        ledgerService.record(movements);
+
+        int successCount = transactionRows.size();
+        log.info("Batch completed: {} succeeded, {} failed", successCount, requests.size() - successCount);
+
+        return BatchTransferResponse.builder()
+                .mode(mode.toString())
+                .totalCount(requests.size())
+                .successCount(successCount)
+                .failureCount(requests.size() - successCount)
+                .results(results)
+                .build();
+    }
+
+    /**
+     * Validate a transfer and queue it as PENDING; the money is moved later by
+     * {@link PendingTransferProcessor}
+     */
+    @Transactional
+    public TransferResponse submitTransfer(TransferRequest request) {
+        log.info("Queueing transfer from {} to {} for amount {}",
+                request.getSourceAccountNumber(), request.getDestinationAccountNumber(), request.getAmount());
+
+        if (request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new BadRequestException("Transfer amount must be positive");
+        }
+
+        if (request.getSourceAccountNumber().equals(request.getDestinationAccountNumber())) {
+            throw new BadRequestException("Source and destination accounts must be different");
+        }
+
+        requireDatabaseOwnedBalances();
+
+        List<Account> accounts = accountRepository.findByAccountNumberIn(
+                List.of(request.getSourceAccountNumber(), request.getDestinationAccountNumber()));
+
+        Account sourceAccount = findByAccountNumber(accounts, request.getSourceAccountNumber());
+        Account destinationAccount = findByAccountNumber(accounts, request.getDestinationAccountNumber());
+
+        if (sourceAccount.getStatus() != AccountStatus.ACTIVE) {
+            throw new AccountClosedException("Source account is not active");
+        }
+
+        if (destinationAccount.getStatus() != AccountStatus.ACTIVE) {
+            throw new AccountClosedException("Destination account is not active");
+        }
+
+        Transaction transaction = Transaction.builder()
+                .transactionId(transactionIdGenerator.nextId())
+                .sourceAccount(sourceAccount)
+                .destinationAccount(destinationAccount)
+                .amount(request.getAmount())
+                .type(TransactionType.TRANSFER)
+                .status(TransactionStatus.PENDING)
+                .description(request.getDescription())
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        Transaction savedTransaction = transactionRepository.save(transaction);
+        log.info("Transfer queued with transaction ID: {}", savedTransaction.getTransactionId());
+        return buildTransferResponse(savedTransaction);
+    }
+
+    @Transactional(readOnly = true)
+    public TransferResponse getTransferStatus(String transactionId) {
+        log.info("Fetching status of transfer with transaction ID: {}", transactionId);
+        Transaction transaction = findByTransactionId(transactionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Transaction", "transactionId", transactionId));
+        return buildTransferResponse(transaction);
+    }
+
+    /**
+     * Claim up to {@code limit} pending transfers (FOR UPDATE SKIP LOCKED, so concurrent
+     * workers never pick the same rows) and settle them in one transaction.
+     * Returns the number of transfers claimed.
+     */
+    @Transactional
+    public int processPendingTransfers(int limit) {
+        requireDatabaseOwnedBalances();
+
+        List<Transaction> pending = transactionRepository.claimPendingTransfers(limit);
+        if (!pending.isEmpty()) {
+            settlePendingTransfers(pending);
+        }
+        return pending.size();
+    }
+
+    /**
+     * Fallback after a batch failed: claim and settle up to {@code limit} pending transfers
+     * one per transaction, so a transfer that cannot be settled no longer takes the rest of
+     * its batch down with it. Each failure is counted on the transfer, which is retried after
+     * a growing delay and marked FAILED once max-attempts is reached.
+     * Returns the number of transfers claimed.
+     */
+    public int processPendingTransfersOneByOne(int limit) {
+        requireDatabaseOwnedBalances();
+
+        int claimed = 0;
+        while (claimed < limit) {
+            List<Transaction> pending = new ArrayList<>(1);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    pending.addAll(transactionRepository.claimPendingTransfers(1));
+                    if (!pending.isEmpty()) {
+                        settlePendingTransfers(pending);
+                    }
+                });
+            } catch (RuntimeException e) {
+                if (pending.isEmpty()) {
+                    throw e;
+                }
+                recordSettleFailure(pending.get(0), e);
+            }
+            if (pending.isEmpty()) {
+                break;
+            }
+            claimed++;
+        }
+        return claimed;
+    }
+
     // Helper methods
+    // Settles claimed transfers in the caller's transaction; transfers that fail the balance
+    // and status checks are marked FAILED, anything else throws and rolls the whole call back
+    private void settlePendingTransfers(List<Transaction> pending) {
+        Set<Long> accountIds = new HashSet<>();
+        for (Transaction transaction : pending) {
+            accountIds.add(transaction.getSourceAccount().getId());
+            accountIds.add(transaction.getDestinationAccount().getId());
+        }
+
+        // Same locking order as every other money movement: one statement, ascending id
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        accountRepository.lockAllByIdIn(accountIds)
+                .forEach(account -> balances.put(account.getId(), lockedBalance(account)));
+        Map<Long, BigDecimal> balanceChanges = new TreeMap<>();
+        List<LedgerService.Movement> movements = new ArrayList<>(pending.size());
+
+        int completed = 0;
+        for (Transaction transaction : pending) {
+            Account sourceAccount = transaction.getSourceAccount();
+            Account destinationAccount = transaction.getDestinationAccount();
+            BigDecimal amount = transaction.getAmount();
+
+            String failure = checkLockedTransfer(sourceAccount, destinationAccount, amount, balances);
+            if (failure != null) {
+                transaction.setStatus(TransactionStatus.FAILED);
+                transaction.setFailureReason(failure);
+                continue;
+            }
+
+            balances.merge(sourceAccount.getId(), amount.negate(), BigDecimal::add);
+            balances.merge(destinationAccount.getId(), amount, BigDecimal::add);
+            balanceChanges.merge(sourceAccount.getId(), amount.negate(), BigDecimal::add);
+            balanceChanges.merge(destinationAccount.getId(), amount, BigDecimal::add);
+            transaction.setStatus(TransactionStatus.COMPLETED);
+            movements.add(LedgerService.Movement.transfer(
+                    transaction.getTransactionId(), sourceAccount.getId(), destinationAccount.getId(), amount));
+            completed++;
+        }
+
+        applyBalanceChanges(balanceChanges);
+        ledgerService.record(movements);
+        log.info("Processed {} pending transfers: {} completed, {} failed",
+                pending.size(), completed, pending.size() - completed);
+    }
+
+    // In a transaction of its own: the one that tried to settle the transfer has rolled back
+    private void recordSettleFailure(Transaction transaction, RuntimeException failure) {
+        String reason = NestedExceptionUtils.getMostSpecificCause(failure).getMessage();
+        String message = "Settlement failed: " + (reason == null ? failure.getClass().getSimpleName() : reason);
+        // failure_reason is VARCHAR(255)
+        String failureReason = message.length() > 255 ? message.substring(0, 255) : message;
+
+        List<Boolean> failed = transactionTemplate.execute(status -> jdbcTemplate.queryForList(
+                "UPDATE transactions SET settle_attempts = settle_attempts + 1, " +
+                        "status = CASE WHEN settle_attempts + 1 >= ? THEN CAST('FAILED' AS transaction_status) ELSE status END, " +
+                        "failure_reason = CASE WHEN settle_attempts + 1 >= ? THEN ? ELSE failure_reason END, " +
+                        "next_attempt_at = CURRENT_TIMESTAMP + make_interval(secs => ? * power(2, settle_attempts)) " +
+                        "WHERE id = ? AND timestamp = ? AND status = 'PENDING' " +
+                        "RETURNING status = 'FAILED'",
+                Boolean.class,
+                maxSettleAttempts, maxSettleAttempts, failureReason, settleRetryDelay.toMillis() / 1000.0,
+                transaction.getId(), Timestamp.valueOf(transaction.getTimestamp())));
+
+        if (failed != null && failed.contains(Boolean.TRUE)) {
+            log.error("Pending transfer {} marked FAILED after {} attempts: {}",
+                    transaction.getTransactionId(), maxSettleAttempts, failureReason);
+        } else {
+            log.warn("Pending transfer {} could not be settled, will retry: {}",
+                    transaction.getTransactionId(), failureReason);
+        }
+    }
+
+    // Rows are projections, not entities, so the persistence context stays empty however many are read
+    private <T> void export(Supplier<Stream<T>> query, Function<T, TransactionDto> mapper, ExportFormat format,
+                            OutputStream outputStream) {
+        TransactionExportWriter writer = new TransactionExportWriter(format, objectMapper, outputStream);
+        Long exported = readOnlyTransactionTemplate.execute(status -> {
+            long count = 0;
+            try (Stream<T> rows = query.get()) {
+                for (T row : (Iterable<T>) rows::iterator) {
+                    writer.write(mapper.apply(row));
+                    if (++count % exportFlushInterval == 0) {
+                        writer.flush();
+                    }
+                }
+            }
+            return count;
+        });
+        writer.flush();
+        log.info("Exported {} transactions", exported);
+    }
+
+    private TransferResponse transferThroughLedgerEngine(LedgerEngine engine, TransferRequest request) {
+        LedgerResult result = engine.transfer(request.getSourceAccountNumber(), request.getDestinationAccountNumber(),
+                request.getAmount(), transactionIdGenerator.nextId(), request.getDescription());
+        if (result.pending()) {
+            return buildTransferResponse(request, result.transactionId(), LocalDateTime.now(),
+                    TransactionStatus.PENDING, "Transfer is still being applied; check its status");
+        }
+        log.info("Transfer applied by ledger engine with transaction ID: {}", result.transactionId());
+
+        return buildTransferResponse(request, result.transactionId(), result.timestamp(),
+                TransactionStatus.COMPLETED, "Transfer completed successfully");
+    }
+
+    // Paths that write balances straight to the database would race the in-memory ledger
+    private void requireDatabaseOwnedBalances() {
+        if (ledgerEngine.isPresent()) {
+            throw new BadRequestException("This operation is not available while the ledger engine is enabled");
+        }
+    }
+
+    private String checkBatchItem(TransferRequest request, Map<String, Account> accounts, Map<Long, BigDecimal> balances) {
+        if (request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            return "Transfer amount must be positive";
+        }
+        if (request.getSourceAccountNumber().equals(request.getDestinationAccountNumber())) {
+            return "Source and destination accounts must be different";
+        }
+
+        Account sourceAccount = accounts.get(request.getSourceAccountNumber());
+        Account destinationAccount = accounts.get(request.getDestinationAccountNumber());
+
+        if (sourceAccount == null) {
+            return "Source account not found";
+        }
+        if (destinationAccount == null) {
+            return "Destination account not found";
+        }
+        return checkLockedTransfer(sourceAccount, destinationAccount, request.getAmount(), balances);
+    }
+
+    // Checks a transfer between locked accounts against their running in-memory balances
+    private String checkLockedTransfer(Account sourceAccount, Account destinationAccount, BigDecimal amount,
+                                       Map<Long, BigDecimal> balances) {
+        if (sourceAccount.getStatus() != AccountStatus.ACTIVE) {
+            return "Source account is not active";
+        }
+        if (destinationAccount.getStatus() != AccountStatus.ACTIVE) {
+            return "Destination account is not active";
+        }
+        if (balances.get(sourceAccount.getId()).compareTo(amount) < 0) {
+            return "Insufficient funds in source account";
+        }
+        return null;
+    }
+
+    // One UPDATE per touched account carrying its net change, sent as a single JDBC batch
+    private void applyBalanceChanges(Map<Long, BigDecimal> balanceChanges) {
+        List<Object[]> balanceRows = new ArrayList<>();
+        balanceChanges.forEach((accountId, change) -> {
+            if (change.signum() != 0) {
+                balanceRows.add(new Object[]{change, accountId});
+            }
+        });
+        jdbcTemplate.batchUpdate(
+                "UPDATE accounts SET balance = balance + ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?",
+                balanceRows);
+    }
+
+    private TransferResponse buildTransferResponse(Transaction transaction) {
+        String message = switch (transaction.getStatus()) {
+            case PENDING -> "Transfer accepted for processing";
+            case COMPLETED -> "Transfer completed successfully";
+            case FAILED -> transaction.getFailureReason() != null ? transaction.getFailureReason() : "Transfer failed";
+        };
+
+        return TransferResponse.builder()
+                .transactionId(transaction.getTransactionId())
+                .sourceAccountNumber(transaction.getSourceAccount() != null ?
+                        transaction.getSourceAccount().getAccountNumber() : null)
+                .destinationAccountNumber(transaction.getDestinationAccount() != null ?
+                        transaction.getDestinationAccount().getAccountNumber() : null)
+                .amount(transaction.getAmount())
+                .timestamp(transaction.getTimestamp())
+                .status(transaction.getStatus().toString())
+                .message(message)
+                .build();
+    }
+
+    private TransferResponse buildTransferResponse(TransferRequest request, String transactionId,
+                                                   LocalDateTime timestamp, TransactionStatus status, String message) {
+        return TransferResponse.builder()
+                .transactionId(transactionId)
+                .sourceAccountNumber(request.getSourceAccountNumber())
+                .destinationAccountNumber(request.getDestinationAccountNumber())
+                .amount(request.getAmount())
+                .timestamp(timestamp)
+                .status(status.toString())
+                .message(message)
+                .build();
+    }
+
+    // Striped slots of a locked account are folded in so the whole balance can be spent
+    private BigDecimal lockedBalance(Account account) {
+        if (!balanceStripingService.isStriped(account)) {
+            return account.getBalance();
+        }
+        return account.getBalance().add(balanceStripingService.foldSlots(account.getId()));
+    }
+
+    private void applyTransfer(Account sourceAccount, Account destinationAccount, BigDecimal amount) {
+        // Touch the rows in ascending id order so opposite-direction transfers cannot deadlock.
+        // A striped destination never locks its accounts row, so its slot credit always goes last.
+        if (balanceStripingService.isStriped(destinationAccount)
+                || sourceAccount.getId() < destinationAccount.getId()) {
+            debit(sourceAccount, amount);
+            credit(destinationAccount, amount);
+        } else {
+            credit(destinationAccount, amount);
+            debit(sourceAccount, amount);
+        }
+    }
+
+    private void debit(Account account, BigDecimal amount) {
+        if (!balanceStripingService.debit(account, amount)) {
+            throw new InsufficientFundsException("Insufficient funds in source account");
+        }
+    }
+
+    private void credit(Account account, BigDecimal amount) {
+        if (!balanceStripingService.credit(account, amount)) {
+            throw new AccountClosedException("Destination account is not active");
+        }
+    }
+
+    private Account findByAccountNumber(List<Account> accounts, String accountNumber) {
+        return accounts.stream()
+                .filter(account -> account.getAccountNumber().equals(accountNumber))
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Account", "accountNumber", accountNumber));
+    }
+
+    // Time-ordered ids carry their creation time, which narrows the lookup to the partitions around it
+    private Optional<Transaction> findByTransactionId(String transactionId) {
+        long epochMillis = TimeOrderedTransactionIdGenerator.extractEpochMillis(transactionId);
+        if (epochMillis >= 0) {
+            LocalDateTime issuedAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+            Optional<Transaction> transaction = transactionRepository.findByTransactionIdAndTimestampBetween(
+                    transactionId, issuedAt.minus(partitionLookupWindow), issuedAt.plus(partitionLookupWindow));
+            if (transaction.isPresent()) {
+                return transaction;
+            }
+        }
+        return transactionRepository.findByTransactionId(transactionId);
+    }
+
+    private TransactionDto convertToDto(TransactionView transaction) {
+        return TransactionDto.builder()
+                .id(transaction.getId())
+                .transactionId(transaction.getTransactionId())
+                .sourceAccountNumber(transaction.getSourceAccountNumber())
+                .destinationAccountNumber(transaction.getDestinationAccountNumber())
+                .amount(transaction.getAmount())
+                .type(transaction.getType())
+                .status(transaction.getStatus())
+                .description(transaction.getDescription())
+                .timestamp(transaction.getTimestamp())
+                .build();
+    }
+
     private TransactionDto convertToDto(Transaction transaction) {
         return TransactionDto.builder()
                 .id(transaction.getId())
@@ -1,20 +1,42 @@
 package com.example.BankSystem.service;
 
+import com.example.BankSystem.cache.UserDetailsCache;
+import com.example.BankSystem.dto.CursorPage;
 import com.example.BankSystem.dto.UserDto;
+import com.example.BankSystem.engine.LedgerEngine;
+import com.example.BankSystem.exception.BadRequestException;
 import com.example.BankSystem.exception.ResourceNotFoundException;
 import com.example.BankSystem.exception.UserAlreadyExistsException;
+import com.example.BankSystem.model.Account;
 import com.example.BankSystem.model.Role;
 import com.example.BankSystem.model.User;
 import com.example.BankSystem.repository.RoleRepository;
 import com.example.BankSystem.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -25,20 +47,86 @@ public class UserService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final UserDetailsCache userDetailsCache;
+    private final EntityManager entityManager;
+    private final Optional<LedgerEngine> ledgerEngine;
+
+    @Value("${app.admin.list.max-page-size:500}")
+    private int maxPageSize;
+
+    @Value("${app.admin.export.batch-size:500}")
+    private int exportBatchSize;
 
     @Autowired
-    public UserService(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder,
+                       ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                       UserDetailsCache userDetailsCache, EntityManager entityManager,
+                       Optional<LedgerEngine> ledgerEngine) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.userDetailsCache = userDetailsCache;
+        this.entityManager = entityManager;
+        this.ledgerEngine = ledgerEngine;
     }
 
+    /**
+     * One page of users in id order, optionally created within [createdFrom, createdTo).
+     * Pass the returned nextCursor as "after" to continue. No total count is computed.
+     */
     @Transactional(readOnly = true)
-    public List<UserDto> getAllUsers() {
-        log.info("Fetching all users");
-        return userRepository.findAll().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    public CursorPage<UserDto> getUsers(LocalDateTime createdFrom, LocalDateTime createdTo, String after, int limit) {
+        log.info("Fetching users after {}", after);
+
+        if (limit < 1 || limit > maxPageSize) {
+            throw new BadRequestException("Limit must be between 1 and " + maxPageSize);
+        }
+
+        // One extra row tells whether another page exists
+        List<UserDto> rows = findUsers(createdFrom, createdTo, parseCursor(after), limit + 1);
+        boolean hasMore = rows.size() > limit;
+        List<UserDto> items = hasMore ? rows.subList(0, limit) : rows;
+
+        return CursorPage.<UserDto>builder()
+                .items(items)
+                .limit(limit)
+                .nextCursor(hasMore ? String.valueOf(items.get(items.size() - 1).getId()) : null)
+                .build();
+    }
+
+    /**
+     * Stream every matching user as NDJSON. Users are read in keyset batches, each in its
+     * own short read-only transaction, so neither memory nor a database connection is held
+     * for the length of the download.
+     */
+    public StreamingResponseBody exportUsers(LocalDateTime createdFrom, LocalDateTime createdTo) {
+        log.info("Exporting users");
+        return outputStream -> {
+            long exported = 0;
+            try (SequenceWriter writer = objectMapper.writerFor(UserDto.class)
+                    .withRootValueSeparator("\n")
+                    .writeValues(outputStream)) {
+                long afterId = 0;
+                List<UserDto> batch;
+                do {
+                    long from = afterId;
+                    batch = readOnlyTransactionTemplate.execute(
+                            status -> findUsers(createdFrom, createdTo, from, exportBatchSize));
+                    writer.writeAll(batch);
+                    writer.flush();
+                    exported += batch.size();
+                    if (!batch.isEmpty()) {
+                        afterId = batch.get(batch.size() - 1).getId();
+                    }
+                } while (batch.size() == exportBatchSize);
+            }
+            log.info("Exported {} users", exported);
+        };
     }
 
     @Transactional(readOnly = true)
@@ -103,6 +191,9 @@ public class UserService {
             throw new UserAlreadyExistsException("Email already exists: " + userDto.getEmail());
         }
 
+        // Drop both names: the old one must stop resolving, the new one must not be stale
+        userDetailsCache.invalidate(existingUser.getUsername(), userDto.getUsername());
+
         existingUser.setUsername(userDto.getUsername());
         existingUser.setEmail(userDto.getEmail());
         existingUser.setFirstName(userDto.getFirstName());
@@ -133,14 +224,85 @@ public class UserService {
     public void deleteUser(Long id) {
         log.info("Deleting user with ID: {}", id);
 
-        if (!userRepository.existsById(id)) {
-            throw new ResourceNotFoundException("User", "id", id);
-        }
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
 
-        userRepository.deleteById(id);
+        // The user's accounts go with it; the ledger engine must stop serving them
+        List<String> accountNumbers = user.getAccounts().stream()
+                .map(Account::getAccountNumber)
+                .toList();
+        userRepository.delete(user);
+        userDetailsCache.invalidate(user.getUsername());
+        refreshLedgerEngineAfterCommit(accountNumbers);
         log.info("User deleted successfully");
     }
 
+    // Ids first, then the users with their roles in one fetch join: paging a collection
+    // fetch join directly would make Hibernate apply the limit in memory
+    private List<UserDto> findUsers(LocalDateTime createdFrom, LocalDateTime createdTo, long afterId, int limit) {
+        List<Long> ids = findUserIds(createdFrom, createdTo, afterId, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return userRepository.findAllWithRolesByIdIn(ids).stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+    }
+
+    private List<Long> findUserIds(LocalDateTime createdFrom, LocalDateTime createdTo, long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<User> user = query.from(User.class);
+        Path<Long> id = user.get("id");
+
+        // Only the bounds actually given become predicates, so the planner sees a plain range
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.greaterThan(id, afterId));
+        if (createdFrom != null) {
+            predicates.add(cb.greaterThanOrEqualTo(user.get("createdAt"), createdFrom));
+        }
+        if (createdTo != null) {
+            predicates.add(cb.lessThan(user.get("createdAt"), createdTo));
+        }
+
+        query.select(id)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.asc(id));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private long parseCursor(String after) {
+        if (after == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(after);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid cursor: " + after);
+        }
+    }
+
+    // The delete is already committed here, so a failure is logged rather than reported
+    private void refreshLedgerEngineAfterCommit(List<String> accountNumbers) {
+        ledgerEngine.ifPresent(engine -> TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        for (String accountNumber : accountNumbers) {
+                            try {
+                                engine.markStale(accountNumber);
+                            } catch (RuntimeException e) {
+                                log.error("Ledger engine was not told that account {} was deleted: {}",
+                                        accountNumber, e.getMessage(), e);
+                            }
+                        }
+                    }
+                }));
+    }
+
     // Helper methods for DTO conversion
     private UserDto convertToDto(User user) {
         Set<String> roleNames = user.getRoles().stream()
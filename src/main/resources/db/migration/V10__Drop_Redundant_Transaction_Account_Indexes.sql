@@ -0,0 +1,3 @@
+-- The (account, timestamp DESC, id DESC) indexes from V9 serve every lookup these did
+DROP INDEX IF EXISTS idx_transactions_source_account;
+DROP INDEX IF EXISTS idx_transactions_destination_account;
@@ -0,0 +1,33 @@
+-- Monthly statements, built incrementally from ledger_entries by StatementService.
+-- One row per account and calendar month with activity; a month without entries
+-- carries the previous closing balance forward when it is read.
+CREATE TABLE account_statements (
+    account_id BIGINT NOT NULL,
+    period DATE NOT NULL,
+    opening_balance DECIMAL(19, 2) NOT NULL,
+    closing_balance DECIMAL(19, 2) NOT NULL,
+    total_credits DECIMAL(19, 2) NOT NULL,
+    total_debits DECIMAL(19, 2) NOT NULL,
+    entry_count INTEGER NOT NULL,
+    last_entry_id BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (account_id, period)
+);
+
+-- Statement lines with the balance after each one. Keyed by the ledger entry they
+-- were built from, so the highest key is the build watermark.
+CREATE TABLE statement_entries (
+    ledger_entry_id BIGINT PRIMARY KEY,
+    account_id BIGINT NOT NULL,
+    period DATE NOT NULL,
+    transaction_id VARCHAR(36),
+    entry_type ledger_entry_type NOT NULL,
+    direction ledger_direction NOT NULL,
+    amount DECIMAL(19, 2) NOT NULL,
+    running_balance DECIMAL(19, 2) NOT NULL,
+    description VARCHAR(255),
+    created_at TIMESTAMP NOT NULL
+);
+
+-- A month of one account is a single range scan in entry order
+CREATE INDEX idx_statement_entries_account_period ON statement_entries (account_id, period, ledger_entry_id);
@@ -0,0 +1,11 @@
+-- Every search is bounded by a date range and ordered by (timestamp, id), newest first.
+-- The composite index serves the range, the order and the keyset seek in one scan, and
+-- makes the single-column timestamp index from V3 redundant.
+CREATE INDEX idx_transactions_timestamp_id ON transactions (timestamp DESC, id DESC);
+DROP INDEX IF EXISTS idx_transactions_timestamp;
+
+-- Searches by type read only that type's slice of the range
+CREATE INDEX idx_transactions_type_timestamp ON transactions (type, timestamp DESC, id DESC);
+
+-- Failed transfers are rare, so a partial index finds them without touching completed ones
+CREATE INDEX idx_transactions_failed_timestamp ON transactions (timestamp DESC, id DESC) WHERE status = 'FAILED';
@@ -0,0 +1,21 @@
+-- Lets V14 attach the current transactions heap as its first partition without scanning
+-- it under an ACCESS EXCLUSIVE lock: ATTACH PARTITION skips the scan when an existing
+-- valid CHECK already implies the partition bound. NOT VALID only takes the lock briefly;
+-- V13_2 validates it and V14 drops it once the partition bound has taken over.
+--
+-- The boundary is computed once and recorded, so V14 attaches the heap with exactly the
+-- bound the CHECK enforces even if it runs in a later month. Until V14 has run, rows dated
+-- on or after the boundary are rejected: ship these migrations together.
+CREATE TABLE transactions_partition_cutover (
+    boundary DATE NOT NULL
+);
+
+INSERT INTO transactions_partition_cutover (boundary)
+VALUES (date_trunc('month', CURRENT_DATE) + INTERVAL '1 month');
+
+DO $$
+BEGIN
+    EXECUTE format('ALTER TABLE transactions ADD CONSTRAINT transactions_legacy_range_check ' ||
+                   'CHECK (timestamp < %L) NOT VALID',
+                   (SELECT boundary FROM transactions_partition_cutover));
+END $$;
@@ -0,0 +1,3 @@
+-- Scans the table under SHARE UPDATE EXCLUSIVE, which blocks neither reads nor writes.
+-- Kept apart from V13_1 so the lock taken there is released first.
+ALTER TABLE transactions VALIDATE CONSTRAINT transactions_legacy_range_check;
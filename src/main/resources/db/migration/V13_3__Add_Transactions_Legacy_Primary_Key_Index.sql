@@ -0,0 +1,5 @@
+-- Index matching the primary key V14 declares on the partitioned table, (id, timestamp),
+-- built without blocking writes so ATTACH PARTITION adopts it instead of building it under
+-- its lock. One CONCURRENTLY build per migration: a failed build leaves an INVALID index
+-- behind, and V14 refuses to run until it has been dropped and rebuilt.
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS transactions_legacy_id_timestamp_key ON transactions (id, timestamp);
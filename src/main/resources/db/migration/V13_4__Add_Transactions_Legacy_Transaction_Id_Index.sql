@@ -0,0 +1,3 @@
+-- Plain index on transaction_id for V14's partitioned index to adopt; the existing unique
+-- index cannot stand in for it. Built like the one in V13_3.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS transactions_legacy_transaction_id_idx ON transactions (transaction_id);
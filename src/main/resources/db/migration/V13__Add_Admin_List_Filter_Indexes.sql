@@ -0,0 +1,7 @@
+-- Admin lists are keyset-paged by id. The status and type indexes end in id so one
+-- range scan serves both the filter and the seek; created_at ranges line up with id
+-- ranges because ids are allocated in creation order.
+CREATE INDEX idx_accounts_status_id ON accounts (status, id);
+CREATE INDEX idx_accounts_type_id ON accounts (account_type, id);
+CREATE INDEX idx_accounts_created_at ON accounts (created_at);
+CREATE INDEX idx_users_created_at ON users (created_at);
@@ -0,0 +1,93 @@
+-- Turn transactions into a table range-partitioned by month on timestamp.
+-- The existing heap is not rewritten: it becomes the first partition, covering
+-- everything before the boundary V13_1 recorded, and monthly partitions follow it.
+-- TransactionPartitionManager keeps creating partitions ahead of time and moves
+-- expired ones to the archive schema.
+--
+-- PostgreSQL requires the partition key in every unique constraint, so the primary
+-- key becomes (id, timestamp) and transaction_id is only indexed here; V18 enforces
+-- its uniqueness through a lookup table.
+--
+-- V13_1 to V13_4 prepared the heap so that attaching it only takes the lock for catalog
+-- changes: a validated CHECK implies the partition bound, and every index of the
+-- partitioned table already has a match to adopt.
+
+-- A failed CONCURRENTLY build leaves an INVALID index that ATTACH would trip over
+DO $$
+DECLARE
+    missing TEXT;
+BEGIN
+    SELECT string_agg(index_name, ', ') INTO missing
+    FROM unnest(ARRAY['transactions_legacy_id_timestamp_key', 'transactions_legacy_transaction_id_idx']) AS index_name
+    WHERE NOT EXISTS (SELECT 1 FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid
+                      WHERE c.relname = index_name AND i.indisvalid);
+    IF missing IS NOT NULL THEN
+        RAISE EXCEPTION 'Index % missing or invalid: drop it with DROP INDEX CONCURRENTLY, '
+                        'run flyway repair and migrate again', missing;
+    END IF;
+END $$;
+
+ALTER TABLE transactions RENAME TO transactions_legacy;
+ALTER INDEX idx_transactions_source_history RENAME TO transactions_legacy_source_history_idx;
+ALTER INDEX idx_transactions_destination_history RENAME TO transactions_legacy_destination_history_idx;
+ALTER INDEX idx_transactions_pending RENAME TO transactions_legacy_pending_idx;
+ALTER INDEX idx_transactions_timestamp_id RENAME TO transactions_legacy_timestamp_id_idx;
+ALTER INDEX idx_transactions_type_timestamp RENAME TO transactions_legacy_type_timestamp_idx;
+ALTER INDEX idx_transactions_failed_timestamp RENAME TO transactions_legacy_failed_timestamp_idx;
+
+-- A partitioned primary key only adopts an index that backs a constraint
+ALTER TABLE transactions_legacy ADD CONSTRAINT transactions_legacy_id_timestamp_key
+    UNIQUE USING INDEX transactions_legacy_id_timestamp_key;
+
+CREATE TABLE transactions (
+    id BIGINT NOT NULL DEFAULT nextval('transactions_id_seq'),
+    transaction_id VARCHAR(36) NOT NULL,
+    source_account_id BIGINT,
+    destination_account_id BIGINT,
+    amount DECIMAL(19, 2) NOT NULL,
+    type transaction_type NOT NULL,
+    status transaction_status NOT NULL,
+    description VARCHAR(255),
+    timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    failure_reason VARCHAR(255),
+    PRIMARY KEY (id, timestamp),
+    FOREIGN KEY (source_account_id) REFERENCES accounts (id),
+    FOREIGN KEY (destination_account_id) REFERENCES accounts (id),
+    CONSTRAINT transactions_amount_check CHECK (amount > 0)
+) PARTITION BY RANGE (timestamp);
+
+-- The sequence must outlive the legacy partition once that is archived
+ALTER SEQUENCE transactions_id_seq OWNED BY transactions.id;
+
+-- Same indexes as before, now partitioned
+CREATE INDEX idx_transactions_transaction_id ON transactions (transaction_id);
+CREATE INDEX idx_transactions_source_history ON transactions (source_account_id, timestamp DESC, id DESC);
+CREATE INDEX idx_transactions_destination_history ON transactions (destination_account_id, timestamp DESC, id DESC);
+CREATE INDEX idx_transactions_pending ON transactions (id) WHERE status = 'PENDING';
+CREATE INDEX idx_transactions_timestamp_id ON transactions (timestamp DESC, id DESC);
+CREATE INDEX idx_transactions_type_timestamp ON transactions (type, timestamp DESC, id DESC);
+CREATE INDEX idx_transactions_failed_timestamp ON transactions (timestamp DESC, id DESC) WHERE status = 'FAILED';
+
+-- Monthly partitions run from the boundary through the third month after the current one
+DO $$
+DECLARE
+    cutover DATE := (SELECT c.boundary FROM transactions_partition_cutover c);
+    month_start DATE;
+BEGIN
+    EXECUTE format('ALTER TABLE transactions ATTACH PARTITION transactions_legacy FOR VALUES FROM (MINVALUE) TO (%L)',
+                   cutover);
+    month_start := cutover;
+    WHILE month_start <= date_trunc('month', CURRENT_DATE) + INTERVAL '3 months' LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+                       'transactions_p' || to_char(month_start, 'YYYYMM'),
+                       month_start, (month_start + INTERVAL '1 month')::DATE);
+        month_start := month_start + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+-- The partition bound now guarantees the same thing
+ALTER TABLE transactions_legacy DROP CONSTRAINT transactions_legacy_range_check;
+DROP TABLE transactions_partition_cutover;
+
+-- Expired partitions are detached into this schema, where they can be dumped and dropped
+CREATE SCHEMA IF NOT EXISTS archive;
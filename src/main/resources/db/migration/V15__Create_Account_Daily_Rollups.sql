@@ -0,0 +1,23 @@
+-- Money in and out of each account per calendar day, folded in from ledger_entries
+-- by RollupService. Days without movements have no row.
+CREATE TABLE account_daily_rollups (
+    account_id BIGINT NOT NULL,
+    day DATE NOT NULL,
+    inflow DECIMAL(19, 2) NOT NULL DEFAULT 0,
+    outflow DECIMAL(19, 2) NOT NULL DEFAULT 0,
+    inflow_count INTEGER NOT NULL DEFAULT 0,
+    outflow_count INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (account_id, day)
+);
+
+-- How far each incremental consumer of ledger_entries has got. The row is also the lock
+-- that keeps two instances from folding the same entries.
+CREATE TABLE ledger_consumers (
+    name VARCHAR(50) PRIMARY KEY,
+    last_entry_id BIGINT NOT NULL
+);
+
+INSERT INTO ledger_consumers (name, last_entry_id) VALUES ('daily_rollups', 0);
+
+-- Rebuilding a date range reads the ledger by time
+CREATE INDEX idx_ledger_entries_created_at ON ledger_entries (created_at);
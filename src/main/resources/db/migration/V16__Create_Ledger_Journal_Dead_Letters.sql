@@ -0,0 +1,13 @@
+-- Movements the in-memory ledger engine applied but could not journal. No foreign keys:
+-- a broken reference may be the very reason the write failed.
+CREATE TABLE ledger_journal_dead_letters (
+    id BIGSERIAL PRIMARY KEY,
+    transaction_id VARCHAR(36),
+    source_account_id BIGINT,
+    destination_account_id BIGINT,
+    amount DECIMAL(19, 2) NOT NULL,
+    description VARCHAR(255),
+    applied_at TIMESTAMP NOT NULL,
+    error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,7 @@
+-- Statements and balance snapshots keep their watermarks in ledger_consumers too,
+-- carrying on from wherever their own tables show they had got to
+INSERT INTO ledger_consumers (name, last_entry_id)
+SELECT 'statements', COALESCE(MAX(ledger_entry_id), 0) FROM statement_entries;
+
+INSERT INTO ledger_consumers (name, last_entry_id)
+SELECT 'balance_snapshots', COALESCE(MAX(last_entry_id), 0) FROM account_balance_snapshots;
@@ -0,0 +1,19 @@
+-- A partitioned table cannot have a unique index on transaction_id alone (V14), so every
+-- transaction id is also recorded in this unpartitioned table, whose primary key rejects
+-- a second row with the same id. Ids of archived partitions stay reserved.
+CREATE TABLE transaction_ids (
+    transaction_id VARCHAR(36) PRIMARY KEY,
+    timestamp TIMESTAMP NOT NULL
+);
+
+CREATE FUNCTION record_transaction_id() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO transaction_ids (transaction_id, timestamp) VALUES (NEW.transaction_id, NEW.timestamp);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Transaction ids are never updated, so inserts are all that need recording
+CREATE TRIGGER transactions_unique_transaction_id
+    AFTER INSERT ON transactions
+    FOR EACH ROW EXECUTE FUNCTION record_transaction_id();
@@ -0,0 +1,5 @@
+-- Existing ids, copied apart from V18 so the trigger's lock is not held for the whole copy.
+-- Rows inserted since V18 are already recorded.
+INSERT INTO transaction_ids (transaction_id, timestamp)
+SELECT transaction_id, timestamp FROM transactions
+ON CONFLICT (transaction_id) DO NOTHING;
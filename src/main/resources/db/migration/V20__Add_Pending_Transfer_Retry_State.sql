@@ -0,0 +1,6 @@
+-- A pending transfer whose settlement keeps failing is retried with a growing delay and
+-- marked FAILED after app.transfer.async.max-attempts, instead of failing every batch
+-- that claims it
+ALTER TABLE transactions
+    ADD COLUMN settle_attempts INT NOT NULL DEFAULT 0,
+    ADD COLUMN next_attempt_at TIMESTAMP;
@@ -0,0 +1,11 @@
+-- Ledger consumers only fold entries that can no longer change: entries at or below
+-- settled_entry_id have all committed or rolled back. A horizon is the highest entry id
+-- handed out at some moment together with the next transaction id of that moment; once
+-- no older transaction is still running, the horizon becomes the new settled_entry_id.
+-- See LedgerConsumerService.
+ALTER TABLE ledger_consumers
+    ADD COLUMN settled_entry_id BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN horizon_entry_id BIGINT,
+    ADD COLUMN horizon_xid xid8;
+
+UPDATE ledger_consumers SET settled_entry_id = last_entry_id;
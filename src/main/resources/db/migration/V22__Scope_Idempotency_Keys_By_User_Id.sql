@@ -0,0 +1,33 @@
+-- Idempotency keys were scoped as "<username>:<key>" and are now "<user id>:<key>": a
+-- username can be changed and then taken by someone else. Live keys are rewritten so a
+-- retry sent across the upgrade is still recognised.
+-- Usernames may contain ':', so the longest username that prefixes the key owns it.
+CREATE TEMPORARY TABLE idempotency_key_owners AS
+SELECT k.idempotency_key,
+       (SELECT u.id || ':' || substr(k.idempotency_key, length(u.username) + 2)
+        FROM users u
+        WHERE u.username IN (SELECT left(k.idempotency_key, i - 1)
+                             FROM generate_series(2, length(k.idempotency_key)) AS i
+                             WHERE substr(k.idempotency_key, i, 1) = ':')
+        ORDER BY length(u.username) DESC
+        LIMIT 1) AS scoped_key
+FROM idempotency_keys k;
+
+-- Keys of users that no longer exist can never be replayed
+DELETE FROM idempotency_keys k
+USING idempotency_key_owners o
+WHERE o.idempotency_key = k.idempotency_key
+  AND o.scoped_key IS NULL;
+
+-- A rewritten key may briefly equal another row's old key, so uniqueness is only
+-- enforced again once every row is rewritten
+ALTER TABLE idempotency_keys DROP CONSTRAINT idempotency_keys_pkey;
+
+UPDATE idempotency_keys k
+SET idempotency_key = o.scoped_key
+FROM idempotency_key_owners o
+WHERE o.idempotency_key = k.idempotency_key;
+
+ALTER TABLE idempotency_keys ADD PRIMARY KEY (idempotency_key);
+
+DROP TABLE idempotency_key_owners;
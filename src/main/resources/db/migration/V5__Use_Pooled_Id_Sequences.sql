@@ -0,0 +1,13 @@
+-- Hibernate allocates ids in blocks of 50 from these sequences (pooled optimizer),
+-- so inserts no longer need to read back an IDENTITY value and can be batched.
+-- Each sequence value is the top of a block; DEFAULT nextval() inserts still get unique ids.
+ALTER SEQUENCE roles_id_seq INCREMENT BY 50;
+ALTER SEQUENCE users_id_seq INCREMENT BY 50;
+ALTER SEQUENCE accounts_id_seq INCREMENT BY 50;
+ALTER SEQUENCE transactions_id_seq INCREMENT BY 50;
+
+-- Move every sequence a full block past the existing rows
+SELECT setval('roles_id_seq', (SELECT COALESCE(MAX(id), 0) FROM roles) + 50);
+SELECT setval('users_id_seq', (SELECT COALESCE(MAX(id), 0) FROM users) + 50);
+SELECT setval('accounts_id_seq', (SELECT COALESCE(MAX(id), 0) FROM accounts) + 50);
+SELECT setval('transactions_id_seq', (SELECT COALESCE(MAX(id), 0) FROM transactions) + 50);
@@ -0,0 +1,4 @@
+ALTER TABLE transactions ADD COLUMN failure_reason VARCHAR(255);
+
+-- Keeps the pending-transfer queue scan cheap no matter how large the table grows
+CREATE INDEX idx_transactions_pending ON transactions (id) WHERE status = 'PENDING';
@@ -0,0 +1,10 @@
+ALTER TABLE accounts ADD COLUMN balance_slots INT NOT NULL DEFAULT 0;
+
+-- Sub-balances of striped accounts; the spendable balance is accounts.balance plus every slot
+CREATE TABLE account_balance_slots (
+    account_id BIGINT NOT NULL,
+    slot INT NOT NULL,
+    balance DECIMAL(19, 2) NOT NULL DEFAULT 0.00,
+    PRIMARY KEY (account_id, slot),
+    FOREIGN KEY (account_id) REFERENCES accounts (id) ON DELETE CASCADE
+);
@@ -0,0 +1,43 @@
+CREATE TYPE ledger_entry_type AS ENUM ('OPENING', 'TRANSFER', 'DEPOSIT', 'WITHDRAWAL');
+CREATE TYPE ledger_direction AS ENUM ('DEBIT', 'CREDIT');
+
+-- Append-only record of every balance movement. No foreign key to accounts so the
+-- history outlives the account rows it describes.
+CREATE TABLE ledger_entries (
+    id BIGSERIAL PRIMARY KEY,
+    account_id BIGINT NOT NULL,
+    transaction_id VARCHAR(36),
+    entry_type ledger_entry_type NOT NULL,
+    direction ledger_direction NOT NULL,
+    amount DECIMAL(19, 2) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CHECK (amount > 0)
+);
+
+CREATE INDEX idx_ledger_entries_account ON ledger_entries (account_id, id);
+
+CREATE FUNCTION reject_ledger_entry_change() RETURNS trigger AS $$
+BEGIN
+    RAISE EXCEPTION 'ledger_entries is append-only';
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER ledger_entries_append_only
+    BEFORE UPDATE OR DELETE ON ledger_entries
+    FOR EACH ROW EXECUTE FUNCTION reject_ledger_entry_change();
+
+-- Checkpoints: the balance of an account after every entry up to last_entry_id
+CREATE TABLE account_balance_snapshots (
+    account_id BIGINT NOT NULL,
+    last_entry_id BIGINT NOT NULL,
+    balance DECIMAL(19, 2) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (account_id, last_entry_id)
+);
+
+CREATE INDEX idx_account_balance_snapshots_last_entry ON account_balance_snapshots (last_entry_id);
+
+-- Existing balances become the opening checkpoint of each account
+INSERT INTO account_balance_snapshots (account_id, last_entry_id, balance)
+SELECT a.id, 0, a.balance + COALESCE((SELECT SUM(s.balance) FROM account_balance_slots s WHERE s.account_id = a.id), 0)
+FROM accounts a;
@@ -0,0 +1,3 @@
+-- Serve account history pages by seeking straight to a (timestamp, id) cursor
+CREATE INDEX idx_transactions_source_history ON transactions (source_account_id, timestamp DESC, id DESC);
+CREATE INDEX idx_transactions_destination_history ON transactions (destination_account_id, timestamp DESC, id DESC);
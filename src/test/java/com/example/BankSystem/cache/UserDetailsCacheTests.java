@@ -0,0 +1,105 @@
+package com.example.BankSystem.cache;
+
+import com.example.BankSystem.model.Role;
+import com.example.BankSystem.model.User;
+import com.example.BankSystem.repository.UserRepository;
+import com.example.BankSystem.service.CustomUserDetailsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserDetailsCacheTests {
+
+	private static final Duration TTL = Duration.ofSeconds(30);
+
+	private final AtomicLong now = new AtomicLong(1_000_000);
+	private final UserDetailsCache cache = new UserDetailsCache(100, TTL, now::get);
+
+	@Test
+	void consecutiveLoginsSucceedAfterTheFirstErasesItsCredentials() {
+		BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+		UserRepository userRepository = mock(UserRepository.class);
+		when(userRepository.findByUsername("alice")).thenReturn(Optional.of(User.builder()
+				.username("alice")
+				.password(passwordEncoder.encode("secret"))
+				.roles(Set.of(Role.builder().name("ROLE_USER").build()))
+				.build()));
+
+		DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+		provider.setUserDetailsService(new CustomUserDetailsService(userRepository, cache));
+		provider.setPasswordEncoder(passwordEncoder);
+		// Erases the password of the returned principal, as in the application
+		ProviderManager authenticationManager = new ProviderManager(provider);
+
+		for (int i = 0; i < 2; i++) {
+			Authentication authentication = authenticationManager.authenticate(
+					new UsernamePasswordAuthenticationToken("alice", "secret"));
+			assertNull(((UserDetails) authentication.getPrincipal()).getPassword());
+		}
+		// The second login was answered from the cache, password intact
+		verify(userRepository, times(1)).findByUsername("alice");
+		assertNotNull(cache.get("alice").getPassword());
+	}
+
+	@Test
+	void loadThatRacedAnInvalidationIsNotCached() {
+		long generation = cache.generation();
+		// Outside a transaction the invalidation applies at once
+		cache.invalidate("alice");
+		cache.put("alice", userDetails(), generation);
+
+		assertNull(cache.get("alice"));
+
+		cache.put("alice", userDetails(), cache.generation());
+		assertNotNull(cache.get("alice"));
+	}
+
+	@Test
+	void entriesExpireAfterTheTtl() {
+		cache.put("alice", userDetails(), cache.generation());
+
+		now.addAndGet(TTL.toMillis() - 1);
+		assertNotNull(cache.get("alice"));
+
+		now.incrementAndGet();
+		assertNull(cache.get("alice"));
+		assertEquals(1, cache.getStats().getExpirations());
+		assertEquals(0, cache.getStats().getSize());
+	}
+
+	@Test
+	void callersGetCopiesOfTheCachedEntry() {
+		cache.put("alice", userDetails(), cache.generation());
+
+		UserDetails first = cache.get("alice");
+		UserDetails second = cache.get("alice");
+
+		assertNotSame(first, second);
+		assertEquals(first, second);
+	}
+
+	private static UserDetails userDetails() {
+		return org.springframework.security.core.userdetails.User.withUsername("alice")
+				.password("hash")
+				.roles("USER")
+				.build();
+	}
+}
@@ -0,0 +1,70 @@
+package com.example.BankSystem.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReplicaRoutingDataSourceTests {
+
+	private final AtomicLong clock = new AtomicLong(1_000_000);
+	private final AtomicBoolean replicaAvailable = new AtomicBoolean(true);
+	private final ReadYourWritesTracker tracker = new ReadYourWritesTracker(Duration.ofSeconds(5), 100, clock::get);
+	private final ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(tracker, replicaAvailable::get);
+
+	@BeforeEach
+	void setUp() {
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("alice", null, "ROLE_USER"));
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+		TransactionSynchronizationManager.setActualTransactionActive(false);
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+	}
+
+	@Test
+	void readWriteTransactionsGoToThePrimary() {
+		assertEquals(DataSourceRoute.PRIMARY, dataSource.determineCurrentLookupKey());
+	}
+
+	@Test
+	void readOnlyTransactionsGoToAnAvailableReplica() {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		assertEquals(DataSourceRoute.REPLICA, dataSource.determineCurrentLookupKey());
+
+		replicaAvailable.set(false);
+		assertEquals(DataSourceRoute.PRIMARY, dataSource.determineCurrentLookupKey());
+	}
+
+	@Test
+	void readsStayOnThePrimaryShortlyAfterTheUsersOwnWrite() {
+		dataSource.determineCurrentLookupKey();
+
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		clock.addAndGet(4_000);
+		assertEquals(DataSourceRoute.PRIMARY, dataSource.determineCurrentLookupKey());
+
+		clock.addAndGet(2_000);
+		assertEquals(DataSourceRoute.REPLICA, dataSource.determineCurrentLookupKey());
+	}
+
+	@Test
+	void otherUsersAreNotPinnedBySomeoneElsesWrite() {
+		dataSource.determineCurrentLookupKey();
+
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("bob", null, "ROLE_USER"));
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		assertEquals(DataSourceRoute.REPLICA, dataSource.determineCurrentLookupKey());
+	}
+}
@@ -0,0 +1,68 @@
+package com.example.BankSystem.engine;
+
+import com.example.BankSystem.service.LedgerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class LedgerJournalTests {
+
+	private static final BigDecimal POISON = new BigDecimal("13.00");
+
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	private final LedgerService ledgerService = mock(LedgerService.class);
+	private final List<BigDecimal> journaled = new ArrayList<>();
+
+	@Test
+	void entryThatCannotBeWrittenIsDeadLetteredAndTheRestStillLand() {
+		// Any batch holding the poison entry fails, the way a constraint violation would
+		doAnswer(invocation -> {
+			List<LedgerService.Movement> movements = invocation.getArgument(0);
+			if (movements.stream().anyMatch(movement -> movement.amount().equals(POISON))) {
+				throw new DataIntegrityViolationException("violates check constraint");
+			}
+			movements.forEach(movement -> journaled.add(movement.amount()));
+			return null;
+		}).when(ledgerService).record(anyList());
+
+		LedgerJournal journal = new LedgerJournal(16, 10, 1, jdbcTemplate, ledgerService,
+				new TransactionTemplate(mock(PlatformTransactionManager.class)));
+		journal.append(deposit("1.00"));
+		journal.append(deposit("13.00"));
+		journal.append(deposit("2.00"));
+		assertFalse(journal.isHalted());
+
+		// Stopped before running: drains what was appended, then returns
+		journal.stop();
+		journal.run();
+
+		assertEquals(List.of(new BigDecimal("1.00"), new BigDecimal("2.00")), journaled);
+		assertTrue(journal.isHalted());
+		verify(jdbcTemplate).update(startsWith("INSERT INTO ledger_journal_dead_letters"),
+				isNull(), isNull(), eq(7L), eq(POISON), isNull(), any(), anyString());
+	}
+
+	private static JournalEntry deposit(String amount) {
+		return new JournalEntry(null, null, 7L, new BigDecimal(amount), null, LocalDateTime.now());
+	}
+}
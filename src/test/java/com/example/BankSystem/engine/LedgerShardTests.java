@@ -0,0 +1,191 @@
+package com.example.BankSystem.engine;
+
+import com.example.BankSystem.enums.AccountStatus;
+import com.example.BankSystem.exception.AccountClosedException;
+import com.example.BankSystem.exception.InsufficientFundsException;
+import com.example.BankSystem.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LedgerShardTests {
+
+	// Accounts starting with "A" live on shard 0, the rest on shard 1
+	private final LedgerShard[] shards = new LedgerShard[2];
+	private final Queue<JournalEntry> journal = new ConcurrentLinkedQueue<>();
+	private final List<Thread> threads = new ArrayList<>();
+	// What the account loader finds in the database
+	private final Map<String, AccountState> stored = new HashMap<>();
+
+	private final AccountState a1 = account(1, "A1", "100.00", AccountStatus.ACTIVE);
+	private final AccountState a2 = account(2, "A2", "100.00", AccountStatus.ACTIVE);
+	private final AccountState b1 = account(3, "B1", "100.00", AccountStatus.ACTIVE);
+	private final AccountState b2 = account(4, "B2", "100.00", AccountStatus.CLOSED);
+
+	@BeforeEach
+	void setUp() {
+		for (int i = 0; i < shards.length; i++) {
+			shards[i] = newShard(i);
+		}
+		shards[0].recover(a1);
+		shards[0].recover(a2);
+		shards[1].recover(b1);
+		shards[1].recover(b2);
+		for (LedgerShard shard : shards) {
+			start(shard);
+		}
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		for (LedgerShard shard : shards) {
+			shard.stop();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+	}
+
+	@Test
+	void sameShardTransferMovesTheMoneyAndJournalsOnce() throws Exception {
+		await(transfer("A1", "A2", "30.00"));
+
+		assertEquals(new BigDecimal("70.00"), a1.balance);
+		assertEquals(new BigDecimal("130.00"), a2.balance);
+		assertJournaled(1L, 2L, "30.00");
+	}
+
+	@Test
+	void crossShardTransferIsCreditedByTheDestinationShard() throws Exception {
+		await(transfer("A1", "B1", "30.00"));
+
+		assertEquals(new BigDecimal("70.00"), a1.balance);
+		assertEquals(new BigDecimal("130.00"), b1.balance);
+		assertJournaled(1L, 3L, "30.00");
+	}
+
+	@Test
+	void rejectedCrossShardCreditRefundsTheSource() throws Exception {
+		ExecutionException failure = assertThrows(ExecutionException.class, () -> await(transfer("A1", "B2", "30.00")));
+		assertInstanceOf(AccountClosedException.class, failure.getCause());
+		assertTrue(journal.isEmpty());
+
+		// The refund was forwarded before the failure was reported, and shard messages go first
+		await(submit(command(LedgerCommand.Kind.WITHDRAW, "A1", null, "100.00")));
+		assertEquals(0, a1.balance.signum());
+		assertEquals(new BigDecimal("100.00"), b2.balance);
+	}
+
+	@Test
+	void insufficientFundsAreRejectedWithoutJournaling() {
+		ExecutionException failure = assertThrows(ExecutionException.class, () -> await(transfer("A1", "B1", "100.01")));
+
+		assertInstanceOf(InsufficientFundsException.class, failure.getCause());
+		assertTrue(journal.isEmpty());
+	}
+
+	@Test
+	void cancelledCommandIsNeverApplied() throws Exception {
+		LedgerShard idle = newShard(0);
+		AccountState account = account(9, "A9", "0.00", AccountStatus.ACTIVE);
+		idle.recover(account);
+
+		LedgerCommand cancelled = command(LedgerCommand.Kind.DEPOSIT, "A9", null, "5.00");
+		assertTrue(idle.submit(cancelled));
+		assertTrue(cancelled.cancel());
+		assertFalse(cancelled.start());
+
+		start(idle);
+		LedgerCommand applied = command(LedgerCommand.Kind.DEPOSIT, "A9", null, "7.00");
+		idle.submit(applied);
+		await(applied);
+		idle.stop();
+
+		assertEquals(new BigDecimal("7.00"), account.balance);
+		assertFalse(cancelled.result.isDone());
+		assertFalse(applied.cancel());
+	}
+
+	@Test
+	void staleAccountPicksUpItsNewStatusButKeepsItsBalance() throws Exception {
+		stored.put("A1", account(1, "A1", "0.00", AccountStatus.FROZEN));
+		shards[0].markStale("A1");
+
+		ExecutionException failure = assertThrows(ExecutionException.class,
+				() -> await(submit(command(LedgerCommand.Kind.DEPOSIT, "A1", null, "5.00"))));
+		assertInstanceOf(AccountClosedException.class, failure.getCause());
+		assertEquals(AccountStatus.FROZEN, a1.status);
+		assertEquals(new BigDecimal("100.00"), a1.balance);
+	}
+
+	@Test
+	void staleAccountThatWasDeletedIsNoLongerServed() {
+		shards[0].markStale("A2");
+
+		ExecutionException failure = assertThrows(ExecutionException.class, () -> await(transfer("A1", "A2", "5.00")));
+		assertInstanceOf(ResourceNotFoundException.class, failure.getCause());
+		assertEquals(new BigDecimal("100.00"), a1.balance);
+		assertTrue(journal.isEmpty());
+	}
+
+	private LedgerShard newShard(int index) {
+		return new LedgerShard(index, 16, accountNumber -> shards[accountNumber.startsWith("A") ? 0 : 1],
+				journal::add, accountNumber -> Optional.ofNullable(stored.get(accountNumber)));
+	}
+
+	private void start(LedgerShard shard) {
+		Thread thread = new Thread(shard);
+		thread.setDaemon(true);
+		thread.start();
+		threads.add(thread);
+	}
+
+	private LedgerCommand transfer(String source, String destination, String amount) {
+		return submit(command(LedgerCommand.Kind.TRANSFER, source, destination, amount));
+	}
+
+	private LedgerCommand submit(LedgerCommand command) {
+		assertTrue(shards[command.accountNumber.startsWith("A") ? 0 : 1].submit(command));
+		return command;
+	}
+
+	private static LedgerCommand command(LedgerCommand.Kind kind, String accountNumber, String counterparty,
+										 String amount) {
+		return new LedgerCommand(kind, accountNumber, counterparty, new BigDecimal(amount),
+				kind == LedgerCommand.Kind.TRANSFER ? "tx-" + System.nanoTime() : null, null, new CompletableFuture<>());
+	}
+
+	private LedgerResult await(LedgerCommand command) throws Exception {
+		return command.result.get(5, TimeUnit.SECONDS);
+	}
+
+	private void assertJournaled(Long sourceId, Long destinationId, String amount) {
+		assertEquals(1, journal.size());
+		JournalEntry entry = journal.peek();
+		assertEquals(sourceId, entry.sourceAccountId());
+		assertEquals(destinationId, entry.destinationAccountId());
+		assertEquals(new BigDecimal(amount), entry.amount());
+	}
+
+	private static AccountState account(long id, String accountNumber, String balance, AccountStatus status) {
+		return new AccountState(id, accountNumber, new BigDecimal(balance), status);
+	}
+}
@@ -0,0 +1,88 @@
+package com.example.BankSystem.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RingBufferTests {
+
+	@Test
+	void capacityMustBeAPowerOfTwo() {
+		assertThrows(IllegalArgumentException.class, () -> new RingBuffer<Integer>(6));
+	}
+
+	@Test
+	void rejectsOffersWhenFullAndKeepsFifoOrderAcrossWraparound() {
+		RingBuffer<Integer> buffer = new RingBuffer<>(4);
+		assertNull(buffer.poll());
+
+		int next = 0;
+		int expected = 0;
+		for (int round = 0; round < 10; round++) {
+			while (buffer.offer(next)) {
+				next++;
+			}
+			assertEquals(4, next - expected);
+			assertFalse(buffer.offer(-1));
+
+			// Drain half so the producer position wraps past the consumer's
+			assertEquals(expected++, buffer.poll());
+			assertEquals(expected++, buffer.poll());
+		}
+		while (expected < next) {
+			assertEquals(expected++, buffer.poll());
+		}
+		assertNull(buffer.poll());
+	}
+
+	@Test
+	void concurrentProducersLoseAndDuplicateNothing() throws InterruptedException {
+		int producers = 4;
+		int perProducer = 20_000;
+		RingBuffer<long[]> buffer = new RingBuffer<>(64);
+
+		List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			int producer = p;
+			Thread thread = new Thread(() -> {
+				for (long i = 0; i < perProducer; i++) {
+					long[] element = {producer, i};
+					while (!buffer.offer(element)) {
+						Thread.onSpinWait();
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+
+		long[] nextExpected = new long[producers];
+		int received = 0;
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (received < producers * perProducer && System.nanoTime() < deadline) {
+			long[] element = buffer.poll();
+			if (element == null) {
+				continue;
+			}
+			// Each producer's elements arrive once and in the order it offered them
+			assertEquals(nextExpected[(int) element[0]]++, element[1]);
+			received++;
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(producers * perProducer, received);
+		assertNull(buffer.poll());
+		for (long count : nextExpected) {
+			assertEquals(perProducer, count);
+		}
+	}
+}
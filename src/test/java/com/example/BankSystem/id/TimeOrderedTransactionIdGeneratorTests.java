@@ -0,0 +1,76 @@
+package com.example.BankSystem.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimeOrderedTransactionIdGeneratorTests {
+
+	private static final long NOW = 1_700_000_000_000L;
+
+	private final AtomicLong clock = new AtomicLong(NOW);
+
+	@Test
+	void idsKeepIncreasingWhenTheClockGoesBackwards() {
+		TimeOrderedTransactionIdGenerator generator = new TimeOrderedTransactionIdGenerator(1, clock::get);
+
+		String before = generator.nextId();
+		clock.set(NOW - 5_000);
+		String after = generator.nextId();
+
+		assertTrue(after.compareTo(before) > 0);
+		assertTrue(UUID.fromString(after).compareTo(UUID.fromString(before)) > 0);
+		assertEquals(NOW, TimeOrderedTransactionIdGenerator.extractEpochMillis(after));
+	}
+
+	@Test
+	void sequenceRolloverAdvancesTheTimestampInsteadOfRepeating() {
+		TimeOrderedTransactionIdGenerator generator = new TimeOrderedTransactionIdGenerator(1, clock::get);
+
+		String previous = generator.nextId();
+		for (int i = 1; i < 4096; i++) {
+			String next = generator.nextId();
+			assertTrue(next.compareTo(previous) > 0);
+			previous = next;
+		}
+		assertEquals(NOW, TimeOrderedTransactionIdGenerator.extractEpochMillis(previous));
+
+		// The 4097th id within the same clock millisecond borrows the next one
+		String rolledOver = generator.nextId();
+		assertTrue(rolledOver.compareTo(previous) > 0);
+		assertEquals(NOW + 1, TimeOrderedTransactionIdGenerator.extractEpochMillis(rolledOver));
+	}
+
+	@Test
+	void nodeIdIsPlacedBelowTheVariantBits() {
+		UUID id = UUID.fromString(new TimeOrderedTransactionIdGenerator(
+				TimeOrderedTransactionIdGenerator.MAX_NODE_ID, clock::get).nextId());
+		UUID other = UUID.fromString(new TimeOrderedTransactionIdGenerator(5, clock::get).nextId());
+
+		assertEquals(7, id.version());
+		assertEquals(2, id.variant());
+		assertEquals(TimeOrderedTransactionIdGenerator.MAX_NODE_ID, (id.getLeastSignificantBits() >>> 52) & 0x3FF);
+		assertEquals(5, (other.getLeastSignificantBits() >>> 52) & 0x3FF);
+	}
+
+	@Test
+	void nodeIdOutsideTenBitsIsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> new TimeOrderedTransactionIdGenerator(-1));
+		assertThrows(IllegalArgumentException.class,
+				() -> new TimeOrderedTransactionIdGenerator(TimeOrderedTransactionIdGenerator.MAX_NODE_ID + 1));
+	}
+
+	@Test
+	void extractEpochMillisOnlyReadsVersionSevenIds() {
+		String id = new TimeOrderedTransactionIdGenerator(0, clock::get).nextId();
+
+		assertEquals(NOW, TimeOrderedTransactionIdGenerator.extractEpochMillis(id));
+		assertEquals(-1, TimeOrderedTransactionIdGenerator.extractEpochMillis(UUID.randomUUID().toString()));
+		assertEquals(-1, TimeOrderedTransactionIdGenerator.extractEpochMillis("TXN-not-a-uuid"));
+	}
+}
@@ -0,0 +1,69 @@
+package com.example.BankSystem.repository;
+
+import com.example.BankSystem.enums.AccountStatus;
+import com.example.BankSystem.enums.AccountType;
+import com.example.BankSystem.model.Account;
+import com.example.BankSystem.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class AccountBatchInsertTests {
+
+	private static final int ACCOUNT_COUNT = 120;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void insertingManyAccountsUsesAHandfulOfStatements() {
+		String suffix = Long.toString(System.nanoTime());
+		User user = userRepository.saveAndFlush(User.builder()
+				.username("batch" + suffix)
+				.password("unused")
+				.email("batch" + suffix + "@example.com")
+				.firstName("Batch")
+				.lastName("Insert")
+				.build());
+
+		List<Account> accounts = new ArrayList<>();
+		for (int i = 0; i < ACCOUNT_COUNT; i++) {
+			accounts.add(Account.builder()
+					.accountNumber("B" + suffix.substring(Math.max(0, suffix.length() - 14)) + String.format("%03d", i))
+					.user(user)
+					.balance(BigDecimal.ZERO)
+					.accountType(AccountType.SAVINGS)
+					.status(AccountStatus.ACTIVE)
+					.build());
+		}
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		accountRepository.saveAllAndFlush(accounts);
+
+		assertEquals(ACCOUNT_COUNT, statistics.getEntityInsertCount());
+		// batch_size=50 gives three INSERT batches, and allocationSize=50 a few sequence calls;
+		// without batching and pooled ids this would be 2 * ACCOUNT_COUNT statements
+		long statements = statistics.getPrepareStatementCount();
+		assertTrue(statements <= 8, "Expected batched inserts but prepared " + statements + " statements");
+	}
+}
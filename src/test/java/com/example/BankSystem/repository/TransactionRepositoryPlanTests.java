@@ -0,0 +1,75 @@
+package com.example.BankSystem.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Transactional
+class TransactionRepositoryPlanTests {
+
+	// Plan node lines only; "Sort Key:" detail lines under Merge Append are fine
+	private static final Pattern SORT_NODE = Pattern.compile("^\\s*(->\\s*)?(Incremental )?Sort\\s+\\(");
+	private static final Pattern SEQ_SCAN_NODE = Pattern.compile("Seq Scan");
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+	@Test
+	void accountHistoryIsServedByIndexRangeScans() {
+		assertIndexOnlyPlan(TransactionRepository.ACCOUNT_HISTORY_QUERY, Map.of("accountId", 1L));
+	}
+
+	@Test
+	void accountHistoryByTypeAndStatusIsServedByIndexRangeScans() {
+		assertIndexOnlyPlan(TransactionRepository.ACCOUNT_HISTORY_BY_TYPE_AND_STATUS_QUERY,
+				Map.of("accountId", 1L, "type", "TRANSFER", "status", "COMPLETED"));
+	}
+
+	@Test
+	void keysetHistoryPageIsServedByIndexRangeScans() {
+		assertIndexOnlyPlan(TransactionRepository.HISTORY_PAGE_QUERY, Map.of("accountId", 1L, "limit", 50));
+	}
+
+	@Test
+	void olderHistoryPagesOnlyScanPartitionsBeforeTheCursor() {
+		// Partitions for the coming months exist from the migration on; a cursor far in the
+		// past must not touch them, however many there are
+		List<String> plan = namedParameterJdbcTemplate.queryForList(
+				"EXPLAIN " + TransactionRepository.HISTORY_PAGE_AFTER_QUERY,
+				Map.of("accountId", 1L, "timestamp", LocalDateTime.of(2000, 1, 1, 0, 0), "id", 1L, "limit", 50),
+				String.class);
+		String planText = String.join("\n", plan);
+
+		assertTrue(planText.contains("transactions_legacy"), "Plan skips the legacy partition:\n" + planText);
+		assertFalse(planText.contains("transactions_p"), "Plan scans newer partitions:\n" + planText);
+	}
+
+	private void assertIndexOnlyPlan(String sql, Map<String, Object> params) {
+		// A test database is small enough that a seq scan would always win on cost; take it
+		// off the table so the test checks whether an index plan exists at all
+		jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+
+		List<String> plan = namedParameterJdbcTemplate.queryForList("EXPLAIN " + sql, params, String.class);
+		String planText = String.join("\n", plan);
+
+		for (String line : plan) {
+			assertFalse(SORT_NODE.matcher(line).find(), "Plan contains a sort:\n" + planText);
+			assertFalse(SEQ_SCAN_NODE.matcher(line).find(), "Plan contains a sequential scan:\n" + planText);
+		}
+	}
+}
@@ -0,0 +1,184 @@
+package com.example.BankSystem.security;
+
+import com.example.BankSystem.cache.UserDetailsCache;
+import com.example.BankSystem.exception.ErrorDetails;
+import com.example.BankSystem.exception.GlobalExceptionHandler;
+import com.example.BankSystem.exception.TooManyRequestsException;
+import com.example.BankSystem.model.Role;
+import com.example.BankSystem.model.User;
+import com.example.BankSystem.repository.UserRepository;
+import com.example.BankSystem.service.CustomUserDetailsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BoundedPasswordEncoderTests {
+
+	private static final int STRENGTH = 5;
+
+	private final HeldEncoder held = new HeldEncoder();
+	private BoundedPasswordEncoder encoder;
+
+	@AfterEach
+	void tearDown() {
+		held.release.countDown();
+		if (encoder != null) {
+			encoder.shutdown();
+		}
+	}
+
+	@Test
+	void hashWhenTheQueueIsFullIsRejected() throws Exception {
+		encoder = new BoundedPasswordEncoder(held, STRENGTH, 1, 1, Duration.ofSeconds(10));
+		ExecutorService callers = Executors.newFixedThreadPool(2);
+		try {
+			Future<Boolean> running = callers.submit(() -> encoder.matches("secret", "hash"));
+			assertTrue(held.entered.await(5, TimeUnit.SECONDS));
+			Future<Boolean> queued = callers.submit(() -> encoder.matches("secret", "hash"));
+			awaitQueueDepth(1);
+
+			assertThrows(TooManyRequestsException.class, () -> encoder.matches("secret", "hash"));
+			assertEquals(1, encoder.getStats().getRejected());
+
+			// The hashes already accepted still complete
+			held.release.countDown();
+			assertTrue(running.get(5, TimeUnit.SECONDS));
+			assertTrue(queued.get(5, TimeUnit.SECONDS));
+		} finally {
+			callers.shutdownNow();
+		}
+	}
+
+	@Test
+	void hashThatRunsPastTheTimeoutIsRejected() {
+		encoder = new BoundedPasswordEncoder(held, STRENGTH, 1, 1, Duration.ofMillis(50));
+
+		assertThrows(TooManyRequestsException.class, () -> encoder.matches("secret", "hash"));
+		assertEquals(1, encoder.getStats().getRejected());
+	}
+
+	@Test
+	void rejectionIsAnsweredWith429() {
+		ResponseEntity<ErrorDetails> response = new GlobalExceptionHandler().handleTooManyRequestsException(
+				new TooManyRequestsException("Too many authentication requests, please retry shortly"),
+				new ServletWebRequest(new MockHttpServletRequest("POST", "/api/auth/login")));
+
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+		assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+	}
+
+	@Test
+	void loginRehashesPasswordsMadeWithAnyOtherStrength() {
+		encoder = new BoundedPasswordEncoder(STRENGTH, 1, 10, Duration.ofSeconds(10));
+
+		for (int storedStrength : new int[]{STRENGTH - 1, STRENGTH + 1}) {
+			UserRepository userRepository = userRepository(new BCryptPasswordEncoder(storedStrength).encode("secret"));
+
+			login(userRepository);
+
+			ArgumentCaptor<User> saved = ArgumentCaptor.forClass(User.class);
+			verify(userRepository).save(saved.capture());
+			assertTrue(saved.getValue().getPassword().startsWith("$2a$0" + STRENGTH + "$"));
+			assertTrue(encoder.matches("secret", saved.getValue().getPassword()));
+		}
+	}
+
+	@Test
+	void loginKeepsPasswordsMadeWithTheConfiguredStrength() {
+		encoder = new BoundedPasswordEncoder(STRENGTH, 1, 10, Duration.ofSeconds(10));
+		UserRepository userRepository = userRepository(encoder.encode("secret"));
+
+		login(userRepository);
+
+		verify(userRepository, never()).save(any());
+		assertFalse(encoder.upgradeEncoding(encoder.encode("secret")));
+	}
+
+	private void login(UserRepository userRepository) {
+		CustomUserDetailsService userDetailsService =
+				new CustomUserDetailsService(userRepository, new UserDetailsCache(100, Duration.ofSeconds(30)));
+		DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+		provider.setUserDetailsService(userDetailsService);
+		provider.setUserDetailsPasswordService(userDetailsService);
+		provider.setPasswordEncoder(encoder);
+
+		new ProviderManager(provider).authenticate(new UsernamePasswordAuthenticationToken("alice", "secret"));
+	}
+
+	private static UserRepository userRepository(String passwordHash) {
+		UserRepository userRepository = mock(UserRepository.class);
+		when(userRepository.findByUsername("alice")).thenReturn(Optional.of(User.builder()
+				.id(1L)
+				.username("alice")
+				.password(passwordHash)
+				.roles(Set.of(Role.builder().name("ROLE_USER").build()))
+				.build()));
+		when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		return userRepository;
+	}
+
+	private void awaitQueueDepth(int depth) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (encoder.getStats().getQueueDepth() < depth) {
+			assertTrue(System.nanoTime() < deadline, "hash was never queued");
+			Thread.sleep(1);
+		}
+	}
+
+	// Holds every hash until released
+	private static class HeldEncoder implements PasswordEncoder {
+
+		private final CountDownLatch entered = new CountDownLatch(1);
+		private final CountDownLatch release = new CountDownLatch(1);
+
+		@Override
+		public String encode(CharSequence rawPassword) {
+			hold();
+			return "hash";
+		}
+
+		@Override
+		public boolean matches(CharSequence rawPassword, String encodedPassword) {
+			hold();
+			return true;
+		}
+
+		private void hold() {
+			entered.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package com.example.BankSystem.security;
+
+import com.example.BankSystem.enums.JwtAuthMode;
+import com.example.BankSystem.service.CustomUserDetailsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class JwtAuthenticationFilterTests {
+
+	private static final int BENCHMARK_REQUESTS = 20_000;
+
+	private final JwtTokenProvider tokenProvider = tokenProvider(50_000);
+	private final CustomUserDetailsService userDetailsService = mock(CustomUserDetailsService.class);
+	private String token;
+
+	@BeforeEach
+	void setUp() {
+		token = tokenProvider.generateToken(new UsernamePasswordAuthenticationToken("alice", null,
+				AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN")));
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void statelessModeAuthenticatesFromClaimsWithoutLoadingTheUser() throws Exception {
+		JwtAuthenticationFilter filter = new JwtAuthenticationFilter(tokenProvider, userDetailsService, JwtAuthMode.STATELESS);
+
+		filter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		assertEquals("alice", authentication.getName());
+		assertEquals(AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN"), authentication.getAuthorities());
+		verifyNoInteractions(userDetailsService);
+	}
+
+	@Test
+	void uncachedProviderVerifiesEveryRequestWithTheSameResult() throws Exception {
+		JwtTokenProvider uncachedProvider = tokenProvider(0);
+		String uncachedToken = uncachedProvider.generateToken(new UsernamePasswordAuthenticationToken("alice", null,
+				AuthorityUtils.createAuthorityList("ROLE_USER")));
+		JwtAuthenticationFilter filter = new JwtAuthenticationFilter(uncachedProvider, userDetailsService, JwtAuthMode.STATELESS);
+
+		for (int i = 0; i < 2; i++) {
+			filter.doFilter(request(uncachedToken), new MockHttpServletResponse(), new MockFilterChain());
+			assertEquals("alice", SecurityContextHolder.getContext().getAuthentication().getName());
+			SecurityContextHolder.clearContext();
+		}
+		verifyNoInteractions(userDetailsService);
+	}
+
+	// Rough figures for the stateless path, not a substitute for a load test. Database mode
+	// also runs the users and roles query per request, which a mocked service cannot show.
+	@Test
+	void statelessFilterThroughput() throws Exception {
+		JwtTokenProvider uncachedProvider = tokenProvider(0);
+		String uncachedToken = uncachedProvider.generateToken(new UsernamePasswordAuthenticationToken("alice", null,
+				AuthorityUtils.createAuthorityList("ROLE_USER")));
+		JwtAuthenticationFilter filter = new JwtAuthenticationFilter(uncachedProvider, userDetailsService, JwtAuthMode.STATELESS);
+
+		measure(filter, uncachedToken);
+		System.out.printf("Stateless JWT filter: %.0f req/s%n", measure(filter, uncachedToken));
+
+		verifyNoInteractions(userDetailsService);
+	}
+
+	@Test
+	void verifiedTokenCacheThroughput() throws Exception {
+		JwtTokenProvider uncachedProvider = tokenProvider(0);
+		String uncachedToken = uncachedProvider.generateToken(new UsernamePasswordAuthenticationToken("alice", null,
+				AuthorityUtils.createAuthorityList("ROLE_USER")));
+		JwtAuthenticationFilter uncached = new JwtAuthenticationFilter(uncachedProvider, userDetailsService, JwtAuthMode.STATELESS);
+		JwtAuthenticationFilter cached = new JwtAuthenticationFilter(tokenProvider, userDetailsService, JwtAuthMode.STATELESS);
+
+		measure(uncached, uncachedToken);
+		measure(cached, token);
+		double uncachedRate = measure(uncached, uncachedToken);
+		double cachedRate = measure(cached, token);
+		System.out.printf("Stateless JWT filter: %.0f req/s uncached, %.0f req/s cached%n", uncachedRate, cachedRate);
+
+		// A map lookup against an HS512 check and a claims parse: only the direction is asserted
+		assertTrue(cachedRate > uncachedRate, cachedRate + " req/s cached, " + uncachedRate + " req/s uncached");
+	}
+
+	@Test
+	void tokenCarriesTheUserIdIntoTheAuthenticatedPrincipal() throws Exception {
+		String idToken = tokenProvider.generateToken(authentication(new UserPrincipal(7L, "alice", "",
+				AuthorityUtils.createAuthorityList("ROLE_USER"))));
+		when(userDetailsService.loadUserByUsername("alice"))
+				.thenReturn(new UserPrincipal(7L, "alice", "hash", AuthorityUtils.createAuthorityList("ROLE_USER")));
+
+		for (JwtAuthMode mode : JwtAuthMode.values()) {
+			new JwtAuthenticationFilter(tokenProvider, userDetailsService, mode)
+					.doFilter(request(idToken), new MockHttpServletResponse(), new MockFilterChain());
+			assertEquals(7L, ((UserPrincipal) SecurityContextHolder.getContext().getAuthentication().getPrincipal()).getId());
+			SecurityContextHolder.clearContext();
+		}
+	}
+
+	@Test
+	void databaseModeRejectsATokenWhoseUsernameNowBelongsToAnotherUser() throws Exception {
+		String idToken = tokenProvider.generateToken(authentication(new UserPrincipal(7L, "alice", "",
+				AuthorityUtils.createAuthorityList("ROLE_USER"))));
+		// alice was renamed and a new user took the name
+		when(userDetailsService.loadUserByUsername("alice"))
+				.thenReturn(new UserPrincipal(8L, "alice", "hash", AuthorityUtils.createAuthorityList("ROLE_USER")));
+		JwtAuthenticationFilter filter = new JwtAuthenticationFilter(tokenProvider, userDetailsService, JwtAuthMode.DATABASE);
+
+		filter.doFilter(request(idToken), new MockHttpServletResponse(), new MockFilterChain());
+
+		assertNull(SecurityContextHolder.getContext().getAuthentication());
+	}
+
+	@Test
+	void invalidTokenLeavesTheRequestAnonymous() throws Exception {
+		JwtAuthenticationFilter filter = new JwtAuthenticationFilter(tokenProvider, userDetailsService, JwtAuthMode.STATELESS);
+
+		filter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+		SecurityContextHolder.clearContext();
+		// A cached token must not vouch for a tampered copy of itself
+		filter.doFilter(request(token + "x"), new MockHttpServletResponse(), new MockFilterChain());
+
+		assertNull(SecurityContextHolder.getContext().getAuthentication());
+	}
+
+	// Requests per second; the first call for a filter doubles as JIT warm-up
+	private double measure(JwtAuthenticationFilter filter, String token) throws Exception {
+		long start = System.nanoTime();
+		for (int i = 0; i < BENCHMARK_REQUESTS; i++) {
+			filter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+			assertEquals("alice", SecurityContextHolder.getContext().getAuthentication().getName());
+			SecurityContextHolder.clearContext();
+		}
+		return BENCHMARK_REQUESTS / ((System.nanoTime() - start) / 1e9);
+	}
+
+	private static JwtTokenProvider tokenProvider(int cacheSize) {
+		JwtTokenProvider provider = new JwtTokenProvider(new VerifiedTokenCache(cacheSize));
+		ReflectionTestUtils.setField(provider, "jwtExpirationInMs", 60_000L);
+		return provider;
+	}
+
+	private static Authentication authentication(UserPrincipal principal) {
+		return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+	}
+
+	private MockHttpServletRequest request(String token) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/accounts");
+		request.addHeader("Authorization", "Bearer " + token);
+		return request;
+	}
+}
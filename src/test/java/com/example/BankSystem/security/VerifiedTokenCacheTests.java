@@ -0,0 +1,80 @@
+package com.example.BankSystem.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class VerifiedTokenCacheTests {
+
+	private static final long EXPIRES_AT = 2_000_000;
+
+	private final AtomicLong now = new AtomicLong(1_000_000);
+
+	@Test
+	void tokensAreForgottenOnceTheyExpire() {
+		VerifiedTokenCache cache = new VerifiedTokenCache(10, now::get, String::hashCode);
+		Claims claims = claims("alice");
+		cache.put("token-a", claims);
+
+		now.set(EXPIRES_AT - 1);
+		assertSame(claims, cache.get("token-a"));
+
+		now.set(EXPIRES_AT);
+		assertNull(cache.get("token-a"));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	void sweepRemovesOnlyExpiredTokens() {
+		VerifiedTokenCache cache = new VerifiedTokenCache(10, now::get, String::hashCode);
+		cache.put("token-a", claims("alice"));
+		cache.put("token-b", Jwts.claims().setSubject("bob").setExpiration(new Date(EXPIRES_AT * 2)));
+
+		now.set(EXPIRES_AT);
+		cache.removeExpiredTokens();
+
+		assertEquals(1, cache.size());
+		assertEquals("bob", cache.get("token-b").getSubject());
+	}
+
+	@Test
+	void fullCacheStopsAcceptingTokens() {
+		VerifiedTokenCache cache = new VerifiedTokenCache(2, now::get, String::hashCode);
+		cache.put("token-a", claims("alice"));
+		cache.put("token-b", claims("bob"));
+		cache.put("token-c", claims("carol"));
+
+		assertEquals(2, cache.size());
+		assertNull(cache.get("token-c"));
+		assertEquals("alice", cache.get("token-a").getSubject());
+	}
+
+	@Test
+	void hashCollisionDoesNotAuthenticateAnotherToken() {
+		// Every token lands on the same key
+		VerifiedTokenCache cache = new VerifiedTokenCache(10, now::get, token -> 42L);
+		cache.put("token-a", claims("alice"));
+
+		assertNull(cache.get("token-b"));
+		assertEquals("alice", cache.get("token-a").getSubject());
+	}
+
+	@Test
+	void tokensWithoutExpiryAreNotCached() {
+		VerifiedTokenCache cache = new VerifiedTokenCache(10, now::get, String::hashCode);
+		cache.put("token-a", Jwts.claims().setSubject("alice"));
+
+		assertEquals(0, cache.size());
+	}
+
+	private static Claims claims(String subject) {
+		return Jwts.claims().setSubject(subject).setExpiration(new Date(EXPIRES_AT));
+	}
+}
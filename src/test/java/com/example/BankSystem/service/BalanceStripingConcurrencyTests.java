@@ -0,0 +1,123 @@
+package com.example.BankSystem.service;
+
+import com.example.BankSystem.enums.AccountStatus;
+import com.example.BankSystem.enums.AccountType;
+import com.example.BankSystem.model.Account;
+import com.example.BankSystem.model.User;
+import com.example.BankSystem.repository.AccountRepository;
+import com.example.BankSystem.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class BalanceStripingConcurrencyTests {
+
+	private static final int SLOTS = 8;
+	private static final int CREDITOR_COUNT = 8;
+	private static final int CREDITS_PER_CREDITOR = 500;
+	private static final BigDecimal CREDIT = new BigDecimal("1.00");
+	private static final BigDecimal INITIAL_BALANCE = new BigDecimal("100.00");
+
+	@Autowired
+	private BalanceStripingService balanceStripingService;
+
+	@Autowired
+	private AccountService accountService;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private User user;
+	private Account account;
+
+	@BeforeEach
+	void setUp() {
+		String suffix = Long.toString(System.nanoTime());
+		user = userRepository.save(User.builder()
+				.username("stripe" + suffix)
+				.password("unused")
+				.email("stripe" + suffix + "@example.com")
+				.firstName("Stripe")
+				.lastName("Test")
+				.build());
+		account = accountRepository.save(Account.builder()
+				.accountNumber(suffix.substring(Math.max(0, suffix.length() - 19)))
+				.user(user)
+				.balance(INITIAL_BALANCE)
+				.accountType(AccountType.CHECKING)
+				.status(AccountStatus.ACTIVE)
+				.build());
+		accountService.configureBalanceStriping(account.getId(), SLOTS);
+		account.setBalanceSlots(SLOTS);
+	}
+
+	@AfterEach
+	void tearDown() {
+		accountRepository.deleteById(account.getId());
+		userRepository.delete(user);
+	}
+
+	@Test
+	void creditsRacingFoldsAndReconfigurationAreNeverLost() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(CREDITOR_COUNT + 2);
+		CountDownLatch creditorsDone = new CountDownLatch(CREDITOR_COUNT);
+		List<Future<?>> futures = new ArrayList<>();
+
+		for (int i = 0; i < CREDITOR_COUNT; i++) {
+			futures.add(executor.submit(() -> {
+				try {
+					for (int n = 0; n < CREDITS_PER_CREDITOR; n++) {
+						assertTrue(transactionTemplate.execute(status -> balanceStripingService.credit(account, CREDIT)));
+					}
+				} finally {
+					creditorsDone.countDown();
+				}
+			}));
+		}
+		futures.add(executor.submit(() -> {
+			while (creditorsDone.getCount() > 0) {
+				transactionTemplate.executeWithoutResult(status -> balanceStripingService.foldSlots(account.getId()));
+			}
+			return null;
+		}));
+		futures.add(executor.submit(() -> {
+			// Shrinking and regrowing deletes slots that creditors may be writing to
+			for (int slots = SLOTS / 2; creditorsDone.getCount() > 0; slots = SLOTS + SLOTS / 2 - slots) {
+				accountService.configureBalanceStriping(account.getId(), slots);
+			}
+			return null;
+		}));
+
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+		for (Future<?> future : futures) {
+			// Surfaces deadlocks and failed assertions
+			future.get();
+		}
+
+		BigDecimal credited = CREDIT.multiply(BigDecimal.valueOf((long) CREDITOR_COUNT * CREDITS_PER_CREDITOR));
+		assertEquals(0, INITIAL_BALANCE.add(credited).compareTo(balanceStripingService.currentBalance(account.getId())));
+	}
+}
@@ -0,0 +1,125 @@
+package com.example.BankSystem.service;
+
+import com.example.BankSystem.dto.TransferRequest;
+import com.example.BankSystem.dto.TransferResponse;
+import com.example.BankSystem.enums.AccountStatus;
+import com.example.BankSystem.enums.AccountType;
+import com.example.BankSystem.model.Account;
+import com.example.BankSystem.model.User;
+import com.example.BankSystem.repository.AccountRepository;
+import com.example.BankSystem.repository.TransactionRepository;
+import com.example.BankSystem.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The background processor is off so the test decides when pending transfers are claimed
+@SpringBootTest(properties = {
+		"app.transfer.async.enabled=false",
+		"app.transfer.async.max-attempts=2"})
+class PendingTransferRetryTests {
+
+	// DECIMAL(19, 2) cannot hold any more: crediting this account fails in the database
+	private static final BigDecimal MAX_BALANCE = new BigDecimal("99999999999999999.00");
+
+	@Autowired
+	private TransactionService transactionService;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private User user;
+	private final List<Account> accounts = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		String suffix = Long.toString(System.nanoTime());
+		user = userRepository.save(User.builder()
+				.username("pending" + suffix)
+				.password("unused")
+				.email("pending" + suffix + "@example.com")
+				.firstName("Pending")
+				.lastName("Test")
+				.build());
+
+		String prefix = suffix.substring(Math.max(0, suffix.length() - 18));
+		accounts.add(saveAccount(prefix + 0, new BigDecimal("100.00")));
+		accounts.add(saveAccount(prefix + 1, BigDecimal.ZERO));
+		accounts.add(saveAccount(prefix + 2, MAX_BALANCE));
+	}
+
+	@AfterEach
+	void tearDown() {
+		for (Account account : accounts) {
+			transactionRepository.deleteAll(transactionRepository.findBySourceAccount(account));
+		}
+		accountRepository.deleteAll(accounts);
+		userRepository.delete(user);
+	}
+
+	@Test
+	void transferThatCannotSettleNoLongerBlocksItsBatch() {
+		String poisoned = submit(accounts.get(2)).getTransactionId();
+		String healthy = submit(accounts.get(1)).getTransactionId();
+
+		assertThrows(RuntimeException.class, () -> transactionService.processPendingTransfers(100));
+		assertEquals("PENDING", transactionService.getTransferStatus(healthy).getStatus());
+
+		transactionService.processPendingTransfersOneByOne(100);
+		assertEquals("COMPLETED", transactionService.getTransferStatus(healthy).getStatus());
+		assertEquals("PENDING", transactionService.getTransferStatus(poisoned).getStatus());
+		assertEquals(1, settleAttempts(poisoned));
+
+		// Waiting out the retry delay: the second failure reaches max-attempts
+		jdbcTemplate.update("UPDATE transactions SET next_attempt_at = NULL WHERE transaction_id = ?", poisoned);
+		transactionService.processPendingTransfersOneByOne(100);
+
+		assertEquals("FAILED", transactionService.getTransferStatus(poisoned).getStatus());
+		assertTrue(transactionService.getTransferStatus(poisoned).getMessage().startsWith("Settlement failed"));
+		assertEquals(0, new BigDecimal("90.00").compareTo(accountRepository.findById(accounts.get(0).getId())
+				.orElseThrow().getBalance()));
+	}
+
+	private TransferResponse submit(Account destination) {
+		return transactionService.submitTransfer(TransferRequest.builder()
+				.sourceAccountNumber(accounts.get(0).getAccountNumber())
+				.destinationAccountNumber(destination.getAccountNumber())
+				.amount(new BigDecimal("10.00"))
+				.build());
+	}
+
+	private int settleAttempts(String transactionId) {
+		return jdbcTemplate.queryForObject("SELECT settle_attempts FROM transactions WHERE transaction_id = ?",
+				Integer.class, transactionId);
+	}
+
+	private Account saveAccount(String accountNumber, BigDecimal balance) {
+		return accountRepository.save(Account.builder()
+				.accountNumber(accountNumber)
+				.user(user)
+				.balance(balance)
+				.accountType(AccountType.CHECKING)
+				.status(AccountStatus.ACTIVE)
+				.build());
+	}
+}
@@ -0,0 +1,150 @@
+package com.example.BankSystem.service;
+
+import com.example.BankSystem.dto.AccountDto;
+import com.example.BankSystem.dto.TransferRequest;
+import com.example.BankSystem.enums.AccountStatus;
+import com.example.BankSystem.enums.AccountType;
+import com.example.BankSystem.model.Account;
+import com.example.BankSystem.model.User;
+import com.example.BankSystem.repository.AccountRepository;
+import com.example.BankSystem.repository.TransactionRepository;
+import com.example.BankSystem.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class QueryCountTests {
+
+	private static final int ACCOUNT_COUNT = 12;
+	private static final int TRANSFER_COUNT = 40;
+
+	@Autowired
+	private TransactionService transactionService;
+
+	@Autowired
+	private AccountService accountService;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private BalanceStripingService balanceStripingService;
+
+	private User user;
+	private User loneUser;
+	private final List<Account> accounts = new ArrayList<>();
+	private Account loneAccount;
+
+	@BeforeEach
+	void setUp() {
+		String suffix = Long.toString(System.nanoTime());
+		String numberPrefix = suffix.substring(Math.max(0, suffix.length() - 17));
+		user = saveUser("queries" + suffix);
+		loneUser = saveUser("lone" + suffix);
+
+		for (int i = 0; i < ACCOUNT_COUNT; i++) {
+			accounts.add(saveAccount(numberPrefix + i, user));
+		}
+		loneAccount = saveAccount(numberPrefix + "L", loneUser);
+		// A striped counterparty makes the list also read slot balances
+		accountService.configureBalanceStriping(accounts.get(1).getId(), 4);
+
+		// Every transfer touches the first account and a different counterparty
+		for (int i = 0; i < TRANSFER_COUNT; i++) {
+			transactionService.transferFunds(TransferRequest.builder()
+					.sourceAccountNumber(accounts.get(0).getAccountNumber())
+					.destinationAccountNumber(accounts.get(1 + i % (ACCOUNT_COUNT - 1)).getAccountNumber())
+					.amount(BigDecimal.ONE)
+					.build());
+		}
+	}
+
+	@AfterEach
+	void tearDown() {
+		transactionRepository.deleteAll(transactionRepository.findBySourceAccount(accounts.get(0)));
+		accountRepository.deleteAll(accounts);
+		accountRepository.delete(loneAccount);
+		userRepository.delete(user);
+		userRepository.delete(loneUser);
+	}
+
+	@Test
+	void transactionPagesCostTheSameNumberOfQueriesWhateverTheirSize() {
+		String accountNumber = accounts.get(0).getAccountNumber();
+
+		long small = countQueries(() -> transactionService.getTransactionsByAccountNumber(
+				accountNumber, PageRequest.of(0, 2)));
+		long large = countQueries(() -> transactionService.getTransactionsByAccountNumber(
+				accountNumber, PageRequest.of(0, TRANSFER_COUNT)));
+		assertEquals(small, large);
+
+		small = countQueries(() -> transactionService.getTransactionHistory(accountNumber, null, null, 2));
+		large = countQueries(() -> transactionService.getTransactionHistory(accountNumber, null, null, TRANSFER_COUNT));
+		assertEquals(small, large);
+	}
+
+	@Test
+	void accountListQueriesDoNotGrowWithItsSize() {
+		long one = countQueries(() -> accountService.getAccountsByUserId(loneUser.getId()));
+		long many = countQueries(() -> accountService.getAccountsByUserId(user.getId()));
+		assertEquals(one, many);
+
+		// Hibernate statistics do not see the JdbcTemplate query summing slot balances,
+		// so check instead that the striped account's slots made it into the list
+		Long stripedId = accounts.get(1).getId();
+		AccountDto striped = accountService.getAccountsByUserId(user.getId()).stream()
+				.filter(account -> account.getId().equals(stripedId))
+				.findFirst()
+				.orElseThrow();
+		assertEquals(0, balanceStripingService.currentBalance(stripedId).compareTo(striped.getBalance()));
+	}
+
+	private User saveUser(String username) {
+		return userRepository.save(User.builder()
+				.username(username)
+				.password("unused")
+				.email(username + "@example.com")
+				.firstName("Query")
+				.lastName("Count")
+				.build());
+	}
+
+	private Account saveAccount(String accountNumber, User owner) {
+		return accountRepository.save(Account.builder()
+				.accountNumber(accountNumber)
+				.user(owner)
+				.balance(new BigDecimal("1000.00"))
+				.accountType(AccountType.CHECKING)
+				.status(AccountStatus.ACTIVE)
+				.build());
+	}
+
+	private long countQueries(Runnable request) {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		request.run();
+		return statistics.getPrepareStatementCount();
+	}
+}
@@ -0,0 +1,140 @@
+package com.example.BankSystem.service;
+
+import com.example.BankSystem.dto.DailyRollupDto;
+import com.example.BankSystem.enums.AccountStatus;
+import com.example.BankSystem.enums.AccountType;
+import com.example.BankSystem.model.Account;
+import com.example.BankSystem.model.User;
+import com.example.BankSystem.repository.AccountRepository;
+import com.example.BankSystem.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Schedulers only run at startup
+@SpringBootTest(properties = {
+		"app.statements.build-interval-ms=3600000",
+		"app.rollups.update-interval-ms=3600000"})
+class RollupServiceTests {
+
+	private static final String CONSUMER = "daily_rollups";
+
+	@Autowired
+	private RollupService rollupService;
+
+	@Autowired
+	private LedgerConsumerService ledgerConsumerService;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private User user;
+	private Account account;
+	private final LocalDate day = LocalDate.now().minusDays(3);
+
+	@BeforeEach
+	void setUp() {
+		String suffix = Long.toString(System.nanoTime());
+		user = userRepository.save(User.builder()
+				.username("rollups" + suffix)
+				.password("unused")
+				.email("rollups" + suffix + "@example.com")
+				.firstName("Rollup")
+				.lastName("Test")
+				.build());
+		account = accountRepository.save(Account.builder()
+				.accountNumber(suffix.substring(Math.max(0, suffix.length() - 19)))
+				.user(user)
+				.balance(BigDecimal.ZERO)
+				.accountType(AccountType.CHECKING)
+				.status(AccountStatus.ACTIVE)
+				.build());
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.update("DELETE FROM account_daily_rollups WHERE account_id = ?", account.getId());
+		accountRepository.delete(account);
+		userRepository.delete(user);
+	}
+
+	@Test
+	void rebuildCountsExactlyTheEntriesTheUpdaterHasFolded() {
+		insertEntry("CREDIT", "40.00", 9);
+		insertEntry("DEBIT", "15.00", 10);
+		rollupService.updateRollups();
+		assertRollup("40.00", 1, "15.00", 1);
+
+		// Rebuilding folded entries gives the same totals, not double
+		rollupService.rebuild(day, day);
+		assertRollup("40.00", 1, "15.00", 1);
+
+		// An entry past the watermark is left to the updater, which then folds it once
+		insertEntry("CREDIT", "5.00", 11);
+		rollupService.rebuild(day, day);
+		assertRollup("40.00", 1, "15.00", 1);
+		rollupService.updateRollups();
+		assertRollup("45.00", 2, "15.00", 1);
+	}
+
+	@Test
+	void updaterSkipsWhileARebuildHoldsTheWatermark() throws Exception {
+		insertEntry("DEBIT", "7.00", 12);
+
+		transactionTemplate.executeWithoutResult(status -> {
+			ledgerConsumerService.lockWatermark(CONSUMER);
+			// Another thread, so another transaction: it must not wait for this one
+			CompletableFuture.runAsync(rollupService::updateRollups).orTimeout(30, TimeUnit.SECONDS).join();
+			assertEquals(List.of(), rollups());
+		});
+
+		rollupService.updateRollups();
+		assertRollup("0.00", 0, "7.00", 1);
+	}
+
+	private void insertEntry(String direction, String amount, int hour) {
+		jdbcTemplate.update(
+				"INSERT INTO ledger_entries (account_id, transaction_id, entry_type, direction, amount, created_at) " +
+						"VALUES (?, NULL, CAST(? AS ledger_entry_type), CAST(? AS ledger_direction), ?, ?)",
+				account.getId(), "CREDIT".equals(direction) ? "DEPOSIT" : "WITHDRAWAL", direction,
+				new BigDecimal(amount), Timestamp.valueOf(LocalDateTime.of(day, LocalTime.of(hour, 0))));
+	}
+
+	private List<DailyRollupDto> rollups() {
+		return rollupService.getDailyRollups(account.getAccountNumber(), day, day);
+	}
+
+	private void assertRollup(String inflow, int inflowCount, String outflow, int outflowCount) {
+		List<DailyRollupDto> rollups = rollups();
+		assertEquals(1, rollups.size());
+		DailyRollupDto rollup = rollups.get(0);
+		assertEquals(0, new BigDecimal(inflow).compareTo(rollup.getInflow()));
+		assertEquals(inflowCount, rollup.getInflowCount());
+		assertEquals(0, new BigDecimal(outflow).compareTo(rollup.getOutflow()));
+		assertEquals(outflowCount, rollup.getOutflowCount());
+	}
+}
@@ -0,0 +1,173 @@
+package com.example.BankSystem.service;
+
+import com.example.BankSystem.dto.StatementDto;
+import com.example.BankSystem.dto.StatementEntryDto;
+import com.example.BankSystem.enums.AccountStatus;
+import com.example.BankSystem.enums.AccountType;
+import com.example.BankSystem.model.Account;
+import com.example.BankSystem.model.User;
+import com.example.BankSystem.repository.AccountRepository;
+import com.example.BankSystem.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// Schedulers only run at startup
+@SpringBootTest(properties = {
+		"app.statements.build-interval-ms=3600000",
+		"app.rollups.update-interval-ms=3600000"})
+class StatementServiceTests {
+
+	@Autowired
+	private StatementService statementService;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private User user;
+	private Account account;
+	private Account counterparty;
+	private final List<String> transactionIds = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		String suffix = Long.toString(System.nanoTime());
+		user = userRepository.save(User.builder()
+				.username("statements" + suffix)
+				.password("unused")
+				.email("statements" + suffix + "@example.com")
+				.firstName("Statement")
+				.lastName("Test")
+				.build());
+		String numberPrefix = suffix.substring(Math.max(0, suffix.length() - 18));
+		account = saveAccount(numberPrefix + "A");
+		counterparty = saveAccount(numberPrefix + "B");
+	}
+
+	@AfterEach
+	void tearDown() {
+		for (Account a : List.of(account, counterparty)) {
+			jdbcTemplate.update("DELETE FROM statement_entries WHERE account_id = ?", a.getId());
+			jdbcTemplate.update("DELETE FROM account_statements WHERE account_id = ?", a.getId());
+		}
+		for (String transactionId : transactionIds) {
+			jdbcTemplate.update("DELETE FROM transactions WHERE transaction_id = ?", transactionId);
+		}
+		accountRepository.deleteAll(List.of(account, counterparty));
+		userRepository.delete(user);
+	}
+
+	@Test
+	void statementsCarryRunningBalancesAndDescriptionsAcrossBuilds() {
+		YearMonth first = YearMonth.now().minusMonths(2);
+		YearMonth second = YearMonth.now().minusMonths(1);
+
+		LocalDateTime deposited = first.atDay(3).atTime(10, 0);
+		LocalDateTime paid = first.atDay(5).atTime(10, 0);
+		insertEntry(account, null, "DEPOSIT", "CREDIT", "100.00", deposited);
+		// A time-ordered id: the description is looked up within the id's partitions only
+		String rent = transfer(timeOrderedId(paid), "rent", "30.00", paid);
+		insertEntry(account, rent, "TRANSFER", "DEBIT", "30.00", paid);
+		insertEntry(counterparty, rent, "TRANSFER", "CREDIT", "30.00", paid);
+		statementService.backfill();
+
+		StatementDto statement = statementService.getStatement(account.getAccountNumber(), first);
+		assertAmount("0.00", statement.getOpeningBalance());
+		assertAmount("70.00", statement.getClosingBalance());
+		assertAmount("100.00", statement.getTotalCredits());
+		assertAmount("30.00", statement.getTotalDebits());
+		assertEquals(2, statement.getEntryCount());
+		assertAmount("100.00", statement.getEntries().get(0).getRunningBalance());
+		assertNull(statement.getEntries().get(0).getDescription());
+		assertAmount("70.00", statement.getEntries().get(1).getRunningBalance());
+		assertEquals("rent", statement.getEntries().get(1).getDescription());
+
+		LocalDateTime refunded = second.atDay(2).atTime(10, 0);
+		// A random id from before time-ordered ids falls back to the unbounded lookup
+		String refund = transfer(UUID.randomUUID().toString(), "refund", "50.00", refunded);
+		insertEntry(counterparty, refund, "TRANSFER", "DEBIT", "50.00", refunded);
+		insertEntry(account, refund, "TRANSFER", "CREDIT", "50.00", refunded);
+		insertEntry(account, null, "WITHDRAWAL", "DEBIT", "20.00", second.atDay(9).atTime(10, 0));
+		statementService.backfill();
+
+		// The second build carries on from the first one's closing balance
+		statement = statementService.getStatement(account.getAccountNumber(), second);
+		assertAmount("70.00", statement.getOpeningBalance());
+		assertAmount("100.00", statement.getClosingBalance());
+		assertAmount("50.00", statement.getTotalCredits());
+		assertAmount("20.00", statement.getTotalDebits());
+		List<StatementEntryDto> entries = statement.getEntries();
+		assertEquals(2, entries.size());
+		assertAmount("120.00", entries.get(0).getRunningBalance());
+		assertEquals("refund", entries.get(0).getDescription());
+		assertAmount("100.00", entries.get(1).getRunningBalance());
+
+		// Rebuilding nothing new leaves the statement as it was
+		statementService.backfill();
+		assertEquals(2, statementService.getStatement(account.getAccountNumber(), second).getEntryCount());
+	}
+
+	private Account saveAccount(String accountNumber) {
+		return accountRepository.save(Account.builder()
+				.accountNumber(accountNumber)
+				.user(user)
+				.balance(BigDecimal.ZERO)
+				.accountType(AccountType.CHECKING)
+				.status(AccountStatus.ACTIVE)
+				.build());
+	}
+
+	private String transfer(String transactionId, String description, String amount, LocalDateTime at) {
+		jdbcTemplate.update(
+				"INSERT INTO transactions (transaction_id, source_account_id, destination_account_id, amount, " +
+						"type, status, description, timestamp) " +
+						"VALUES (?, ?, ?, ?, CAST('TRANSFER' AS transaction_type), " +
+						"CAST('COMPLETED' AS transaction_status), ?, ?)",
+				transactionId, account.getId(), counterparty.getId(), new BigDecimal(amount), description,
+				Timestamp.valueOf(at));
+		transactionIds.add(transactionId);
+		return transactionId;
+	}
+
+	// Back-dated straight into the ledger so the entries fall into past months
+	private void insertEntry(Account target, String transactionId, String type, String direction, String amount,
+							 LocalDateTime at) {
+		jdbcTemplate.update(
+				"INSERT INTO ledger_entries (account_id, transaction_id, entry_type, direction, amount, created_at) " +
+						"VALUES (?, ?, CAST(? AS ledger_entry_type), CAST(? AS ledger_direction), ?, ?)",
+				target.getId(), transactionId, type, direction, new BigDecimal(amount), Timestamp.valueOf(at));
+	}
+
+	// Same layout as TimeOrderedTransactionIdGenerator, for a chosen time
+	private static String timeOrderedId(LocalDateTime at) {
+		long millis = at.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+		long random = ThreadLocalRandom.current().nextLong() & ((1L << 62) - 1);
+		return new UUID(millis << 16 | 0x7000L, 1L << 63 | random).toString();
+	}
+
+	private static void assertAmount(String expected, BigDecimal actual) {
+		assertEquals(0, new BigDecimal(expected).compareTo(actual), () -> expected + " != " + actual);
+	}
+}
@@ -0,0 +1,103 @@
+package com.example.BankSystem.service;
+
+import com.example.BankSystem.id.RandomUuidTransactionIdGenerator;
+import com.example.BankSystem.id.TimeOrderedTransactionIdGenerator;
+import com.example.BankSystem.id.TransactionIdGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Plain timed comparison of the two id strategies; raise -DtransactionIdBench.rows for a
+// table large enough that its index no longer fits in shared_buffers
+@SpringBootTest
+class TransactionIdInsertThroughputTests {
+
+	private static final int ROWS = Integer.getInteger("transactionIdBench.rows", 100_000);
+	private static final int BATCH_SIZE = 1_000;
+	private static final int GENERATED_IDS = 1_000_000;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void setUp() {
+		// Same column and unique index as transactions.transaction_id
+		for (String table : new String[]{"bench_random_ids", "bench_ordered_ids"}) {
+			jdbcTemplate.execute("DROP TABLE IF EXISTS " + table);
+			jdbcTemplate.execute("CREATE TABLE " + table + " (transaction_id VARCHAR(36) NOT NULL, " +
+					"CONSTRAINT " + table + "_key UNIQUE (transaction_id))");
+		}
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.execute("DROP TABLE IF EXISTS bench_random_ids");
+		jdbcTemplate.execute("DROP TABLE IF EXISTS bench_ordered_ids");
+	}
+
+	@Test
+	void timeOrderedIdsInsertIntoASmallerIndex() {
+		long randomNanos = insert("bench_random_ids", new RandomUuidTransactionIdGenerator());
+		long orderedNanos = insert("bench_ordered_ids", new TimeOrderedTransactionIdGenerator(0));
+
+		long randomIndexBytes = indexBytes("bench_random_ids_key");
+		long orderedIndexBytes = indexBytes("bench_ordered_ids_key");
+		report("random-uuid", randomNanos, randomIndexBytes);
+		report("time-ordered", orderedNanos, orderedIndexBytes);
+
+		// Appends to the right edge leave full pages; random keys split pages all over the index
+		assertTrue(orderedIndexBytes < randomIndexBytes,
+				"time-ordered index " + orderedIndexBytes + " bytes, random " + randomIndexBytes + " bytes");
+	}
+
+	@Test
+	void generationCost() {
+		for (TransactionIdGenerator generator : new TransactionIdGenerator[]{
+				new RandomUuidTransactionIdGenerator(), new TimeOrderedTransactionIdGenerator(0)}) {
+			generate(generator);
+			long nanos = generate(generator);
+			System.out.printf("%s: %d ns per id%n", generator.getClass().getSimpleName(), nanos / GENERATED_IDS);
+		}
+	}
+
+	private long insert(String table, TransactionIdGenerator generator) {
+		long start = System.nanoTime();
+		for (int inserted = 0; inserted < ROWS; inserted += BATCH_SIZE) {
+			List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+			for (int i = 0; i < BATCH_SIZE; i++) {
+				batch.add(new Object[]{generator.nextId()});
+			}
+			jdbcTemplate.batchUpdate("INSERT INTO " + table + " (transaction_id) VALUES (?)", batch);
+		}
+		return System.nanoTime() - start;
+	}
+
+	private long generate(TransactionIdGenerator generator) {
+		long start = System.nanoTime();
+		int length = 0;
+		for (int i = 0; i < GENERATED_IDS; i++) {
+			length += generator.nextId().length();
+		}
+		long nanos = System.nanoTime() - start;
+		assertTrue(length > 0);
+		return nanos;
+	}
+
+	private long indexBytes(String index) {
+		return jdbcTemplate.queryForObject("SELECT pg_relation_size(CAST(? AS regclass))", Long.class, index);
+	}
+
+	private void report(String strategy, long nanos, long indexBytes) {
+		System.out.printf("%s: %d rows in %d ms (%d rows/s), index %d kB%n", strategy, ROWS,
+				TimeUnit.NANOSECONDS.toMillis(nanos), ROWS * TimeUnit.SECONDS.toNanos(1) / nanos, indexBytes / 1024);
+	}
+}
@@ -0,0 +1,128 @@
+package com.example.BankSystem.service;
+
+import com.example.BankSystem.dto.TransferRequest;
+import com.example.BankSystem.enums.AccountStatus;
+import com.example.BankSystem.enums.AccountType;
+import com.example.BankSystem.exception.InsufficientFundsException;
+import com.example.BankSystem.model.Account;
+import com.example.BankSystem.model.User;
+import com.example.BankSystem.repository.AccountRepository;
+import com.example.BankSystem.repository.TransactionRepository;
+import com.example.BankSystem.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class TransactionServiceConcurrencyTests {
+
+	private static final int ACCOUNT_COUNT = 10;
+	private static final int TRANSFER_COUNT = 4000;
+	private static final int THREAD_COUNT = 16;
+	private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+
+	@Autowired
+	private TransactionService transactionService;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	private User user;
+	private final List<Account> accounts = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		String suffix = Long.toString(System.nanoTime());
+		user = userRepository.save(User.builder()
+				.username("stress" + suffix)
+				.password("unused")
+				.email("stress" + suffix + "@example.com")
+				.firstName("Stress")
+				.lastName("Test")
+				.build());
+
+		for (int i = 0; i < ACCOUNT_COUNT; i++) {
+			accounts.add(accountRepository.save(Account.builder()
+					.accountNumber(suffix.substring(Math.max(0, suffix.length() - 18)) + i)
+					.user(user)
+					.balance(INITIAL_BALANCE)
+					.accountType(AccountType.CHECKING)
+					.status(AccountStatus.ACTIVE)
+					.build()));
+		}
+	}
+
+	@AfterEach
+	void tearDown() {
+		for (Account account : accounts) {
+			transactionRepository.deleteAll(transactionRepository.findBySourceAccount(account));
+		}
+		accountRepository.deleteAll(accounts);
+		userRepository.delete(user);
+	}
+
+	@Test
+	void concurrentTransfersPreserveTotalBalance() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+		AtomicInteger completed = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		List<Future<?>> futures = new ArrayList<>();
+
+		for (int i = 0; i < TRANSFER_COUNT; i++) {
+			futures.add(executor.submit(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				int from = random.nextInt(ACCOUNT_COUNT);
+				int to = (from + 1 + random.nextInt(ACCOUNT_COUNT - 1)) % ACCOUNT_COUNT;
+
+				TransferRequest request = TransferRequest.builder()
+						.sourceAccountNumber(accounts.get(from).getAccountNumber())
+						.destinationAccountNumber(accounts.get(to).getAccountNumber())
+						.amount(BigDecimal.valueOf(random.nextInt(1, 300)))
+						.build();
+				try {
+					transactionService.transferFunds(request);
+					completed.incrementAndGet();
+				} catch (InsufficientFundsException e) {
+					rejected.incrementAndGet();
+				}
+			}));
+		}
+
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+		for (Future<?> future : futures) {
+			// Surfaces deadlocks and any other unexpected failure
+			future.get();
+		}
+
+		List<Account> reloaded = accountRepository.findAllById(accounts.stream().map(Account::getId).toList());
+		BigDecimal total = reloaded.stream()
+				.map(Account::getBalance)
+				.reduce(BigDecimal.ZERO, BigDecimal::add);
+
+		assertEquals(TRANSFER_COUNT, completed.get() + rejected.get());
+		assertEquals(0, INITIAL_BALANCE.multiply(BigDecimal.valueOf(ACCOUNT_COUNT)).compareTo(total));
+		reloaded.forEach(account -> assertTrue(account.getBalance().signum() >= 0));
+	}
+}